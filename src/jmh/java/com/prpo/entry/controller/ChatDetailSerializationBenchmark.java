@@ -0,0 +1,66 @@
+package com.prpo.entry.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.prpo.entry.model.ChatDetail;
+import com.prpo.entry.model.Message;
+import com.prpo.entry.model.MessageRole;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Jackson serialization of a {@link ChatDetail} response, configured like Spring MVC's mapper. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatDetailSerializationBenchmark {
+
+  @Param({"50", "1000"})
+  int messages;
+
+  private ObjectWriter writer;
+  private ChatDetail detail;
+
+  @Setup
+  public void setup() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    writer = objectMapper.writerFor(ChatDetail.class);
+
+    OffsetDateTime start = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    List<Message> items = new ArrayList<>(messages);
+    for (int i = 0; i < messages; i++) {
+      items.add(new Message()
+          .id(UUID.randomUUID().toString())
+          .role(i % 2 == 0 ? MessageRole.USER : MessageRole.ASSISTANT)
+          .content("Message number " + i + " with a few sentences of typical chat content. ".repeat(4))
+          .createdAt(start.plusSeconds(i))
+          .providerId(i % 2 == 0 ? null : "openai")
+          .modelId(i % 2 == 0 ? null : "gpt-4o-mini"));
+    }
+    detail = new ChatDetail().id(UUID.randomUUID().toString()).title("Benchmark chat").messages(items);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return writer.writeValueAsBytes(detail);
+  }
+}
@@ -0,0 +1,98 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.model.Message;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Entity-to-API mapping, cursor codecs and title sanitizing from {@link ChatService} and {@link TitleGenerator}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMappingBenchmark {
+
+  @Param({"50", "1000", "10000"})
+  int historySize;
+
+  private List<MessageEntity> history;
+  private OffsetDateTime timestamp;
+  private String id;
+  private String chatCursor;
+  private String messageCursor;
+  private String rawTitle;
+
+  @Setup
+  public void setup() {
+    OffsetDateTime start = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    history = new ArrayList<>(historySize);
+    for (int i = 0; i < historySize; i++) {
+      MessageEntity m = new MessageEntity();
+      m.setId(UUID.randomUUID().toString());
+      m.setRole(i % 2 == 0 ? MessageEntity.Role.user : MessageEntity.Role.assistant);
+      m.setContent("Message number " + i + " with a few sentences of typical chat content. ".repeat(4));
+      m.setCreatedAt(start.plusSeconds(i));
+      if (i % 2 == 1) {
+        m.setProviderId("openai");
+        m.setModelId("gpt-4o-mini");
+        m.setRequestId("req_" + UUID.randomUUID());
+      }
+      history.add(m);
+    }
+
+    timestamp = start.plusNanos(123_456_000);
+    id = UUID.randomUUID().toString();
+    chatCursor = ChatService.encodeCursor(timestamp, id);
+    messageCursor = ChatService.encodeMessageCursor(timestamp, id);
+    rawTitle = "  \"Planning   a trip\tto   Ljubljana\n in spring!?\"  ";
+  }
+
+  @Benchmark
+  public List<Message> mapHistory() {
+    List<Message> out = new ArrayList<>(history.size());
+    for (MessageEntity e : history) out.add(ChatService.toApiMessage(e));
+    return out;
+  }
+
+  @Benchmark
+  public String encodeChatCursor() {
+    return ChatService.encodeCursor(timestamp, id);
+  }
+
+  @Benchmark
+  public ChatService.CursorParts decodeChatCursor() {
+    return ChatService.decodeCursor(chatCursor);
+  }
+
+  @Benchmark
+  public String encodeMessageCursor() {
+    return ChatService.encodeMessageCursor(timestamp, id);
+  }
+
+  @Benchmark
+  public ChatService.CursorParts decodeMessageCursor() {
+    return ChatService.decodeMessageCursor(messageCursor);
+  }
+
+  @Benchmark
+  public String sanitizeTitle() {
+    return TitleGenerator.sanitizeTitle(rawTitle);
+  }
+}
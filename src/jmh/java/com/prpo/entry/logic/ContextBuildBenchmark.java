@@ -0,0 +1,76 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@link ContextBuilder#build} on a cached conversation, i.e. without touching the database. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBuildBenchmark {
+
+  private static final String CHAT_ID = "chat-1";
+
+  @Param({"20", "200"})
+  int messages;
+
+  @Param({"8000", "128000"})
+  int maxTokens;
+
+  private ContextBuilder builder;
+
+  @Setup
+  public void setup() {
+    ContextProperties properties = new ContextProperties(
+        maxTokens,
+        messages,
+        Map.of(),
+        new ContextProperties.Summary(true, 20, 20, 100, 2),
+        new ContextProperties.Cache(true, 1000, 50_000_000L, Duration.ofDays(1))
+    );
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ConversationCache cache = new ConversationCache(properties, meterRegistry);
+
+    OffsetDateTime start = OffsetDateTime.now().minusDays(1);
+    List<ConversationCache.CachedMessage> history = new ArrayList<>(messages);
+    for (int i = 0; i < messages; i++) {
+      String content = "Turn " + i + ": " + "some moderately long chat content. ".repeat(20);
+      history.add(new ConversationCache.CachedMessage(
+          i % 2 == 0 ? "user" : "assistant",
+          content,
+          TokenEstimator.estimate(content),
+          start.plusSeconds(i)
+      ));
+    }
+    cache.put(CHAT_ID, new ConversationCache.Entry(
+        messages, "Earlier the user asked about trains.", 10, start, List.copyOf(history)));
+
+    builder = new ContextBuilder(null, null, cache, properties, meterRegistry);
+  }
+
+  @Benchmark
+  public List<RouterClient.ContextMessage> build() {
+    return builder.build(CHAT_ID, messages, null);
+  }
+}
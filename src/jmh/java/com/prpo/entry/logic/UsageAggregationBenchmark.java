@@ -0,0 +1,64 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.model.UsageSummary;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Folding usage events into the summary served by the usage endpoint. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsageAggregationBenchmark {
+
+  private static final String USER_ID = "auth0|bench";
+  private static final String[] PROVIDERS = {"openai", "anthropic", "local"};
+
+  @Param({"1000", "100000"})
+  int events;
+
+  private List<UsageClient.UsageEventSummaryItem> items;
+
+  @Setup
+  public void setup() {
+    OffsetDateTime start = OffsetDateTime.now().minusDays(30);
+    items = new ArrayList<>(events);
+    for (int i = 0; i < events; i++) {
+      items.add(new UsageClient.UsageEventSummaryItem(
+          UUID.randomUUID().toString(),
+          USER_ID,
+          PROVIDERS[i % PROVIDERS.length],
+          "model-" + (i % 7),
+          500 + i % 1500,
+          0.0001 * (i % 50),
+          200 + i % 3000,
+          start.plusMinutes(i)
+      ));
+    }
+  }
+
+  @Benchmark
+  public UsageSummary aggregate() {
+    UsageAggregator agg = new UsageAggregator(USER_ID);
+    for (UsageClient.UsageEventSummaryItem e : items) agg.add(e);
+    return agg.toSummary(LocalDate.now().minusDays(30), LocalDate.now());
+  }
+}
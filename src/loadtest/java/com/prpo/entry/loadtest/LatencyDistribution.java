@@ -0,0 +1,33 @@
+package com.prpo.entry.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency defined by its median and 99th percentile, which is close to what LLM
+ * providers look like: most answers near the median and a long tail.
+ */
+record LatencyDistribution(long medianMs, long p99Ms) {
+
+  private static final double Z_99 = 2.326;
+
+  static LatencyDistribution parse(String spec) {
+    String[] parts = spec.split(",");
+    long median = Long.parseLong(parts[0].trim());
+    long p99 = parts.length > 1 ? Long.parseLong(parts[1].trim()) : median;
+    if (median < 0 || p99 < median) {
+      throw new IllegalArgumentException("latency must be 'median,p99' with p99 >= median: " + spec);
+    }
+    return new LatencyDistribution(median, p99);
+  }
+
+  long sampleMs() {
+    if (medianMs == 0 || p99Ms == medianMs) return medianMs;
+    double sigma = Math.log((double) p99Ms / medianMs) / Z_99;
+    return Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+  }
+
+  @Override
+  public String toString() {
+    return "median " + medianMs + " ms, p99 " + p99Ms + " ms";
+  }
+}
@@ -0,0 +1,262 @@
+package com.prpo.entry.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.prpo.entry.PrpoEntryApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end load test: starts stub router and usage services, boots the application against
+ * them and a local Postgres, then drives a weighted mix of API calls from virtual users with
+ * locally signed JWTs and reports throughput, latency percentiles and pool saturation.
+ *
+ * <p>Run with {@code ./mvnw -Ploadtest -DskipTests verify}; see {@link LoadTestConfig} for the
+ * {@code -Dloadtest.*} knobs. Needs only a reachable Postgres, no network access. With
+ * {@code -Dloadtest.compare-threads=true} the same scenario runs twice, once on platform and once
+ * on virtual threads, each against a freshly booted application, and both results go into one
+ * report next to each other.
+ */
+public final class LoadTest {
+
+  private final LoadTestConfig config;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Recorder recorder = new Recorder();
+  private final HttpClient http = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(5))
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+
+  private String apiBaseUrl;
+
+  private LoadTest(LoadTestConfig config) {
+    this.config = config;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+    TestTokens tokens = new TestTokens();
+
+    Map<String, Object> report;
+    if (config.compareThreads()) {
+      Map<String, Object> platform = new LoadTest(config.withVirtualThreads(false)).run(tokens);
+      Map<String, Object> virtual = new LoadTest(config.withVirtualThreads(true)).run(tokens);
+      printComparison(platform, virtual);
+
+      report = new LinkedHashMap<>();
+      report.put("platform", platform);
+      report.put("virtual", virtual);
+    } else {
+      report = new LoadTest(config).run(tokens);
+    }
+
+    String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+    if (config.report().getParent() != null) Files.createDirectories(config.report().getParent());
+    Files.writeString(config.report(), json);
+    System.out.println("\nreport written to " + config.report().toAbsolutePath());
+  }
+
+  private Map<String, Object> run(TestTokens tokens) throws Exception {
+    try (StubServices stubs = new StubServices(config);
+         ConfigurableApplicationContext app = boot(stubs, tokens);
+         SaturationSampler sampler = new SaturationSampler(app.getBean(MeterRegistry.class))) {
+
+      apiBaseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port") + "/api/v1";
+      String runId = Long.toString(System.currentTimeMillis(), 36);
+
+      List<String> jwts = new ArrayList<>(config.users());
+      for (int i = 0; i < config.users(); i++) {
+        jwts.add(tokens.issue("loadtest|" + runId + "-" + i, config.warmup().plus(config.duration()).plusHours(1)));
+      }
+
+      System.out.printf("load test: %d users, warm-up %ds, measure %ds, router %s, virtual threads %s%n",
+          config.users(), config.warmup().toSeconds(), config.duration().toSeconds(),
+          config.routerLatency(), config.virtualThreads());
+
+      Instant measureFrom = Instant.now().plus(config.warmup());
+      Instant end = measureFrom.plus(config.duration());
+
+      try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (String jwt : jwts) {
+          users.submit(() -> virtualUser(jwt, end));
+        }
+
+        Thread.sleep(config.warmup().toMillis());
+        recorder.start();
+        sampler.start();
+        Thread.sleep(config.duration().toMillis());
+        recorder.stop();
+        sampler.stop();
+      }
+
+      return report(stubs, sampler);
+    }
+  }
+
+  private ConfigurableApplicationContext boot(StubServices stubs, TestTokens tokens) {
+    Map<String, Object> props = new HashMap<>();
+    props.put("server.port", "0");
+    props.put("server.tomcat.mbeanregistry.enabled", "true");
+    props.put("spring.threads.virtual.enabled", Boolean.toString(config.virtualThreads()));
+    props.put("spring.datasource.url", config.dbUrl());
+    props.put("spring.datasource.username", config.dbUser());
+    props.put("spring.datasource.password", config.dbPassword());
+    props.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", TestTokens.ISSUER);
+    props.put("prpo.auth0.audience", TestTokens.AUDIENCE);
+    props.put("prpo.auth0.jwks-file", tokens.jwksFile().toString());
+    props.put("ROUTER_BASE_URL", stubs.routerBaseUrl());
+    props.put("USAGE_BASE_URL", stubs.usageBaseUrl());
+    props.put("INTERNAL_SERVICE_TOKEN", "loadtest");
+    props.put("prpo.stream.max-concurrency", "10000");
+    props.put("logging.level.root", "WARN");
+
+    return new SpringApplicationBuilder(PrpoEntryApplication.class)
+        .properties(props)
+        .run();
+  }
+
+  private void virtualUser(String jwt, Instant end) {
+    List<String> chats = new ArrayList<>();
+    int totalWeight = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+
+    while (Instant.now().isBefore(end)) {
+      LoadTestConfig.Operation op = pick(totalWeight);
+      if (chats.isEmpty() && op != LoadTestConfig.Operation.LIST_CHATS && op != LoadTestConfig.Operation.USAGE_SUMMARY) {
+        op = LoadTestConfig.Operation.CREATE_CHAT;
+      }
+
+      long startedAt = System.nanoTime();
+      try {
+        HttpResponse<String> resp = switch (op) {
+          case CREATE_CHAT -> send(jwt, "POST", "/chat", "{\"title\":\"Load test chat\"}");
+          case SEND_MESSAGE -> send(jwt, "POST", "/chat/" + randomOf(chats) + "/message",
+              objectMapper.writeValueAsString(Map.of("content", message())));
+          case LIST_CHATS -> send(jwt, "GET", "/chat?limit=50", null);
+          case GET_CHAT -> send(jwt, "GET", "/chat/" + randomOf(chats), null);
+          case USAGE_SUMMARY -> send(jwt, "GET", "/usage", null);
+        };
+
+        if (resp.statusCode() / 100 == 2) {
+          recorder.success(op, startedAt);
+          if (op == LoadTestConfig.Operation.CREATE_CHAT) {
+            JsonNode body = objectMapper.readTree(resp.body());
+            chats.add(body.path("id").asText());
+          }
+        } else {
+          recorder.error(op);
+        }
+      } catch (Exception e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        recorder.error(op);
+      }
+
+      if (!config.thinkTime().isZero()) {
+        try {
+          Thread.sleep(config.thinkTime().toMillis());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private HttpResponse<String> send(String jwt, String method, String path, String json) throws Exception {
+    HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(apiBaseUrl + path))
+        .timeout(Duration.ofMinutes(2))
+        .header("Authorization", "Bearer " + jwt)
+        .header("Accept", "application/json");
+    if (json != null) {
+      req.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(json));
+    } else {
+      req.method(method, HttpRequest.BodyPublishers.noBody());
+    }
+    return http.send(req.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private LoadTestConfig.Operation pick(int totalWeight) {
+    int r = ThreadLocalRandom.current().nextInt(totalWeight);
+    for (var e : config.mix().entrySet()) {
+      r -= e.getValue();
+      if (r < 0) return e.getKey();
+    }
+    return LoadTestConfig.Operation.LIST_CHATS;
+  }
+
+  private String message() {
+    return "Please help me with the following question. ".repeat(config.messageChars() / 44 + 1)
+        .substring(0, Math.max(1, config.messageChars()));
+  }
+
+  private static String randomOf(List<String> items) {
+    return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+  }
+
+  private Map<String, Object> report(StubServices stubs, SaturationSampler sampler) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    Map<String, Object> setup = new LinkedHashMap<>();
+    setup.put("users", config.users());
+    setup.put("durationSeconds", config.duration().toSeconds());
+    setup.put("mix", config.mix());
+    setup.put("routerLatency", config.routerLatency().toString());
+    setup.put("routerReplyChars", config.routerReplyChars());
+    setup.put("messageChars", config.messageChars());
+    setup.put("virtualThreads", config.virtualThreads());
+    report.put("setup", setup);
+    report.put("operations", recorder.summary(config.duration().toMillis() / 1000.0));
+    report.put("saturation", sampler.summary());
+    report.put("stubs", Map.of("routerCalls", stubs.routerCalls.get(), "usageEvents", stubs.usageEvents.get()));
+
+    System.out.printf("%n%-15s %8s %7s %9s %9s %9s %9s %9s%n",
+        "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+    for (var e : recorder.summary(config.duration().toMillis() / 1000.0).entrySet()) {
+      Map<String, Object> r = e.getValue();
+      System.out.printf("%-15s %8s %7s %9s %9s %9s %9s %9s%n", e.getKey(), r.get("count"), r.get("errors"),
+          r.get("throughputPerSec"), r.get("p50Ms"), r.get("p90Ms"), r.get("p99Ms"), r.get("maxMs"));
+    }
+    System.out.println();
+    sampler.summary().forEach((k, v) -> System.out.printf("%-22s %s%n", k, v));
+    return report;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void printComparison(Map<String, Object> platform, Map<String, Object> virtual) {
+    var p = (Map<String, Map<String, Object>>) platform.get("operations");
+    var v = (Map<String, Map<String, Object>>) virtual.get("operations");
+
+    System.out.printf("%n%-15s %21s %21s %21s %15s%n",
+        "platform|virtual", "ops/s", "p50 ms", "p99 ms", "errors");
+    for (String op : p.keySet()) {
+      System.out.printf("%-15s %21s %21s %21s %15s%n", op,
+          pair(p.get(op), v.get(op), "throughputPerSec"),
+          pair(p.get(op), v.get(op), "p50Ms"),
+          pair(p.get(op), v.get(op), "p99Ms"),
+          pair(p.get(op), v.get(op), "errors"));
+    }
+  }
+
+  private static String pair(Map<String, Object> platform, Map<String, Object> virtual, String key) {
+    return platform.get(key) + " | " + (virtual != null ? virtual.get(key) : "-");
+  }
+}
@@ -0,0 +1,71 @@
+package com.prpo.entry.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Harness settings, read from {@code -Dloadtest.*} system properties. */
+record LoadTestConfig(
+    int users,
+    Duration warmup,
+    Duration duration,
+    Duration thinkTime,
+    Map<Operation, Integer> mix,
+    int messageChars,
+    LatencyDistribution routerLatency,
+    int routerReplyChars,
+    LatencyDistribution usageLatency,
+    String dbUrl,
+    String dbUser,
+    String dbPassword,
+    boolean virtualThreads,
+    boolean compareThreads,
+    Path report
+) {
+
+  enum Operation { CREATE_CHAT, SEND_MESSAGE, LIST_CHATS, GET_CHAT, USAGE_SUMMARY }
+
+  static LoadTestConfig fromSystemProperties() {
+    return new LoadTestConfig(
+        Integer.getInteger("loadtest.users", 50),
+        Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+        Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+        Duration.ofMillis(Long.getLong("loadtest.think-ms", 0)),
+        parseMix(System.getProperty("loadtest.mix", "create:5,send:30,list:30,get:25,usage:10")),
+        Integer.getInteger("loadtest.message-chars", 400),
+        LatencyDistribution.parse(System.getProperty("loadtest.router.latency-ms", "800,6000")),
+        Integer.getInteger("loadtest.router.reply-chars", 1500),
+        LatencyDistribution.parse(System.getProperty("loadtest.usage.latency-ms", "5,50")),
+        System.getProperty("loadtest.db.url", "jdbc:postgresql://localhost:5432/prpo_loadtest"),
+        System.getProperty("loadtest.db.user", "postgres"),
+        System.getProperty("loadtest.db.password", "postgres"),
+        Boolean.parseBoolean(System.getProperty("loadtest.virtual-threads", "false")),
+        Boolean.parseBoolean(System.getProperty("loadtest.compare-threads", "false")),
+        Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"))
+    );
+  }
+
+  LoadTestConfig withVirtualThreads(boolean enabled) {
+    return new LoadTestConfig(users, warmup, duration, thinkTime, mix, messageChars, routerLatency,
+        routerReplyChars, usageLatency, dbUrl, dbUser, dbPassword, enabled, false, report);
+  }
+
+  private static Map<Operation, Integer> parseMix(String spec) {
+    Map<Operation, Integer> mix = new LinkedHashMap<>();
+    for (String part : spec.split(",")) {
+      String[] kv = part.trim().split(":");
+      if (kv.length != 2) throw new IllegalArgumentException("invalid loadtest.mix entry: " + part);
+      Operation op = switch (kv[0].trim()) {
+        case "create" -> Operation.CREATE_CHAT;
+        case "send" -> Operation.SEND_MESSAGE;
+        case "list" -> Operation.LIST_CHATS;
+        case "get" -> Operation.GET_CHAT;
+        case "usage" -> Operation.USAGE_SUMMARY;
+        default -> throw new IllegalArgumentException("unknown operation in loadtest.mix: " + kv[0]);
+      };
+      mix.put(op, Integer.parseInt(kv[1].trim()));
+    }
+    return mix;
+  }
+}
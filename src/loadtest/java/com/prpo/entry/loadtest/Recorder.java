@@ -0,0 +1,91 @@
+package com.prpo.entry.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Latencies and errors per operation, recorded only once the warm-up is over. */
+final class Recorder {
+
+  private static final class Series {
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] micros = new long[1024];
+    private int count;
+    private final AtomicLong errors = new AtomicLong();
+
+    void add(long value) {
+      lock.lock();
+      try {
+        if (count == micros.length) micros = Arrays.copyOf(micros, count * 2);
+        micros[count++] = value;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long[] sorted() {
+      lock.lock();
+      try {
+        long[] copy = Arrays.copyOf(micros, count);
+        Arrays.sort(copy);
+        return copy;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private final Map<LoadTestConfig.Operation, Series> series = new EnumMap<>(LoadTestConfig.Operation.class);
+  private volatile boolean recording;
+
+  Recorder() {
+    for (LoadTestConfig.Operation op : LoadTestConfig.Operation.values()) series.put(op, new Series());
+  }
+
+  void start() {
+    recording = true;
+  }
+
+  void stop() {
+    recording = false;
+  }
+
+  void success(LoadTestConfig.Operation op, long startedAtNanos) {
+    if (recording) series.get(op).add((System.nanoTime() - startedAtNanos) / 1_000);
+  }
+
+  void error(LoadTestConfig.Operation op) {
+    if (recording) series.get(op).errors.incrementAndGet();
+  }
+
+  /** Per-operation count, errors, throughput and latency percentiles in milliseconds. */
+  Map<String, Map<String, Object>> summary(double seconds) {
+    Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+    for (var e : series.entrySet()) {
+      long[] sorted = e.getValue().sorted();
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("count", sorted.length);
+      row.put("errors", e.getValue().errors.get());
+      row.put("throughputPerSec", round(sorted.length / seconds));
+      row.put("p50Ms", percentileMs(sorted, 0.50));
+      row.put("p90Ms", percentileMs(sorted, 0.90));
+      row.put("p99Ms", percentileMs(sorted, 0.99));
+      row.put("maxMs", sorted.length == 0 ? 0.0 : round(sorted[sorted.length - 1] / 1000.0));
+      out.put(e.getKey().name(), row);
+    }
+    return out;
+  }
+
+  private static double percentileMs(long[] sorted, double p) {
+    if (sorted.length == 0) return 0.0;
+    int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+    return round(sorted[Math.max(0, idx)] / 1000.0);
+  }
+
+  private static double round(double v) {
+    return Math.round(v * 100.0) / 100.0;
+  }
+}
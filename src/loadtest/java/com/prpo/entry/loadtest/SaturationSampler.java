@@ -0,0 +1,104 @@
+package com.prpo.entry.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Samples pool gauges from the application's registry while the test runs: Hikari
+ * active/pending connections, Tomcat busy threads and the router connection pool.
+ */
+final class SaturationSampler implements AutoCloseable {
+
+  private static final class Stat {
+    double max;
+    double sum;
+    long samples;
+
+    void add(double v) {
+      if (Double.isNaN(v)) return;
+      max = Math.max(max, v);
+      sum += v;
+      samples++;
+    }
+  }
+
+  private final MeterRegistry registry;
+  private final Map<String, Function<MeterRegistry, Search>> gauges = new LinkedHashMap<>();
+  private final Map<String, Stat> stats = new LinkedHashMap<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private volatile boolean recording;
+
+  SaturationSampler(MeterRegistry registry) {
+    this.registry = registry;
+    gauges.put("hikari.active", r -> r.find("hikaricp.connections.active"));
+    gauges.put("hikari.pending", r -> r.find("hikaricp.connections.pending"));
+    gauges.put("hikari.max", r -> r.find("hikaricp.connections.max"));
+    gauges.put("tomcat.threads.busy", r -> r.find("tomcat.threads.busy"));
+    gauges.put("router.pool.active", r -> r.find("reactor.netty.connection.provider.active.connections").tag("name", "router"));
+    gauges.put("router.pool.pending", r -> r.find("reactor.netty.connection.provider.pending.connections").tag("name", "router"));
+    gauges.keySet().forEach(k -> stats.put(k, new Stat()));
+
+    scheduler.scheduleAtFixedRate(this::sample, 0, 250, TimeUnit.MILLISECONDS);
+  }
+
+  void start() {
+    recording = true;
+  }
+
+  void stop() {
+    recording = false;
+  }
+
+  private void sample() {
+    if (!recording) return;
+    for (var e : gauges.entrySet()) {
+      double total = 0;
+      boolean found = false;
+      for (Gauge g : e.getValue().apply(registry).gauges()) {
+        total += g.value();
+        found = true;
+      }
+      if (found) {
+        synchronized (stats) {
+          stats.get(e.getKey()).add(total);
+        }
+      }
+    }
+  }
+
+  Map<String, Map<String, Object>> summary() {
+    Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+    synchronized (stats) {
+      for (var e : stats.entrySet()) {
+        Stat s = e.getValue();
+        if (s.samples == 0) continue;
+        out.put(e.getKey(), Map.of(
+            "max", s.max,
+            "mean", Math.round(s.sum / s.samples * 100.0) / 100.0
+        ));
+      }
+    }
+
+    var acquire = registry.find("hikaricp.connections.acquire").timer();
+    if (acquire != null) {
+      out.put("hikari.acquire", Map.of(
+          "count", acquire.count(),
+          "meanMs", Math.round(acquire.mean(TimeUnit.MILLISECONDS) * 100.0) / 100.0,
+          "maxMs", Math.round(acquire.max(TimeUnit.MILLISECONDS) * 100.0) / 100.0
+      ));
+    }
+    return out;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
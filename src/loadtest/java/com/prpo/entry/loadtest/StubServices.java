@@ -0,0 +1,169 @@
+package com.prpo.entry.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-process stand-ins for the router and usage services, on loopback ports. Each request
+ * sleeps for a sample of the configured latency distribution before answering.
+ */
+final class StubServices implements AutoCloseable {
+
+  private static final int STREAM_CHUNKS = 20;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final LoadTestConfig config;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final HttpServer router;
+  private final HttpServer usage;
+  private final String reply;
+
+  final AtomicLong routerCalls = new AtomicLong();
+  final AtomicLong usageEvents = new AtomicLong();
+
+  StubServices(LoadTestConfig config) throws IOException {
+    this.config = config;
+    this.reply = "This is a canned assistant reply from the load-test router. "
+        .repeat(Math.max(1, config.routerReplyChars() / 60 + 1))
+        .substring(0, Math.max(1, config.routerReplyChars()));
+
+    InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    router = HttpServer.create(loopback, 1024);
+    router.createContext("/internal/router/route/stream", this::routeStream);
+    router.createContext("/internal/router/route", this::route);
+    router.setExecutor(executor);
+
+    usage = HttpServer.create(loopback, 1024);
+    usage.createContext("/internal/usage/events", this::usageEvents);
+    usage.setExecutor(executor);
+
+    router.start();
+    usage.start();
+  }
+
+  String routerBaseUrl() {
+    return "http://127.0.0.1:" + router.getAddress().getPort();
+  }
+
+  String usageBaseUrl() {
+    return "http://127.0.0.1:" + usage.getAddress().getPort();
+  }
+
+  private void route(HttpExchange ex) throws IOException {
+    try (ex) {
+      JsonNode req = readJson(ex);
+      routerCalls.incrementAndGet();
+      long latency = config.routerLatency().sampleMs();
+      sleep(latency);
+      writeJson(ex, 200, routeResponse(req, latency));
+    }
+  }
+
+  private void routeStream(HttpExchange ex) throws IOException {
+    try (ex) {
+      JsonNode req = readJson(ex);
+      routerCalls.incrementAndGet();
+      long latency = config.routerLatency().sampleMs();
+
+      ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+      ex.sendResponseHeaders(200, 0);
+      OutputStream out = ex.getResponseBody();
+
+      int chunk = Math.max(1, reply.length() / STREAM_CHUNKS);
+      for (int i = 0; i < reply.length(); i += chunk) {
+        sleep(latency / STREAM_CHUNKS);
+        String part = reply.substring(i, Math.min(reply.length(), i + chunk));
+        writeEvent(out, "delta", objectMapper.writeValueAsString(Map.of("content", part)));
+      }
+      writeEvent(out, "done", objectMapper.writeValueAsString(routeResponse(req, latency)));
+    }
+  }
+
+  private void usageEvents(HttpExchange ex) throws IOException {
+    try (ex) {
+      sleep(config.usageLatency().sampleMs());
+      if ("POST".equals(ex.getRequestMethod())) {
+        JsonNode event = readJson(ex);
+        usageEvents.incrementAndGet();
+        writeJson(ex, 200, Map.of(
+            "accepted", true,
+            "eventId", event.path("eventId").asText(UUID.randomUUID().toString()),
+            "deduplicated", false
+        ));
+      } else {
+        writeJson(ex, 200, Map.of("items", List.of(), "total", 0));
+      }
+    }
+  }
+
+  private Map<String, Object> routeResponse(JsonNode req, long latency) {
+    int promptTokens = req.path("message").asText("").length() / 4 + req.path("context").size() * 50;
+    int completionTokens = reply.length() / 4;
+    return Map.of(
+        "requestId", req.path("requestId").asText(),
+        "providerId", "stub",
+        "modelId", "stub-model",
+        "assistantContent", reply,
+        "latencyMs", latency,
+        "usage", Map.of(
+            "promptTokens", promptTokens,
+            "completionTokens", completionTokens,
+            "totalTokens", promptTokens + completionTokens
+        ),
+        "estimatedCost", 0.000002 * (promptTokens + completionTokens),
+        "currency", "EUR"
+    );
+  }
+
+  private JsonNode readJson(HttpExchange ex) throws IOException {
+    InputStream in = ex.getRequestBody();
+    if ("gzip".equalsIgnoreCase(ex.getRequestHeaders().getFirst("Content-Encoding"))) {
+      in = new GZIPInputStream(in);
+    }
+    return objectMapper.readTree(in);
+  }
+
+  private void writeJson(HttpExchange ex, int status, Object body) throws IOException {
+    byte[] bytes = objectMapper.writeValueAsBytes(body);
+    ex.getResponseHeaders().set("Content-Type", "application/json");
+    ex.sendResponseHeaders(status, bytes.length);
+    ex.getResponseBody().write(bytes);
+  }
+
+  private static void writeEvent(OutputStream out, String event, String data) throws IOException {
+    out.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static void sleep(long ms) {
+    if (ms <= 0) return;
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    router.stop(0);
+    usage.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,59 @@
+package com.prpo.entry.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A throwaway RSA key whose public half is written to a JWKS file for
+ * {@code prpo.auth0.jwks-file}, so the application verifies our tokens without Auth0.
+ */
+final class TestTokens {
+
+  static final String ISSUER = "https://loadtest.invalid/";
+  static final String AUDIENCE = "https://prpo-api";
+
+  private final RSAKey key;
+  private final Path jwksFile;
+
+  TestTokens() throws JOSEException, IOException {
+    this.key = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+    this.jwksFile = Files.createTempFile("prpo-loadtest-jwks", ".json");
+    this.jwksFile.toFile().deleteOnExit();
+    Files.writeString(jwksFile, new JWKSet(key.toPublicJWK()).toString());
+  }
+
+  Path jwksFile() {
+    return jwksFile;
+  }
+
+  String issue(String subject, Duration ttl) throws JOSEException {
+    Instant now = Instant.now();
+    JWTClaimsSet claims = new JWTClaimsSet.Builder()
+        .issuer(ISSUER)
+        .audience(AUDIENCE)
+        .subject(subject)
+        .issueTime(Date.from(now))
+        .expirationTime(Date.from(now.plus(ttl)))
+        .claim("email", subject.replace('|', '-') + "@loadtest.invalid")
+        .claim("name", "Load test " + subject)
+        .build();
+
+    SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+    jwt.sign(new RSASSASigner(key));
+    return jwt.serialize();
+  }
+}
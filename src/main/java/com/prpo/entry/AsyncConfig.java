@@ -0,0 +1,146 @@
+package com.prpo.entry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Background executors. With {@code spring.threads.virtual.enabled} every task gets its own
+ * virtual thread and the pool sizes below become concurrency limits; admission and rejection
+ * behave the same in both modes, so callers don't need to know which one is active.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+  private final boolean virtualThreads;
+
+  public AsyncConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  @Bean
+  TaskExecutor chatStreamExecutor(
+      @Value("${prpo.stream.max-concurrency:64}") int maxConcurrency
+  ) {
+    return bounded("chat-stream-", maxConcurrency, 0, 30);
+  }
+
+  @Bean
+  TaskExecutor titleExecutor(
+      @Value("${prpo.title.concurrency:4}") int concurrency,
+      @Value("${prpo.title.queue-capacity:500}") int queueCapacity
+  ) {
+    return bounded("chat-title-", concurrency, queueCapacity, 30);
+  }
+
+  @Bean
+  TaskExecutor summaryExecutor(
+      @Value("${prpo.context.summary.concurrency:2}") int concurrency
+  ) {
+    return bounded("chat-summary-", concurrency, 200, 30);
+  }
+
+  @Bean
+  TaskExecutor usageSummaryExecutor(
+      @Value("${prpo.usage.summary.cache.refresh-concurrency:2}") int concurrency
+  ) {
+    // Refreshes are best-effort; shutdown does not wait for them.
+    return bounded("usage-summary-", concurrency, 100, 0);
+  }
+
+  @Bean
+  TaskExecutor usageRollupExecutor() {
+    // A single backfill at a time; it is rerun on the next start if shutdown interrupts it.
+    return bounded("usage-rollup-", 1, 1, 0);
+  }
+
+  private TaskExecutor bounded(
+      String threadNamePrefix,
+      int concurrency,
+      int queueCapacity,
+      int awaitTerminationSeconds
+  ) {
+    if (virtualThreads) {
+      return new VirtualTaskExecutor(threadNamePrefix, concurrency, queueCapacity, awaitTerminationSeconds);
+    }
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(threadNamePrefix);
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setAllowCoreThreadTimeOut(queueCapacity == 0);
+    executor.setWaitForTasksToCompleteOnShutdown(awaitTerminationSeconds > 0);
+    executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+    return executor;
+  }
+
+  /**
+   * One virtual thread per task. At most {@code concurrency} tasks run at once and at most
+   * {@code queueCapacity} more wait for a slot; anything beyond that is rejected, like a full
+   * {@link ThreadPoolTaskExecutor}.
+   */
+  static final class VirtualTaskExecutor implements TaskExecutor, DisposableBean {
+
+    private final ThreadFactory threadFactory;
+    private final int capacity;
+    private final int awaitTerminationSeconds;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private volatile boolean shutdown;
+
+    VirtualTaskExecutor(String threadNamePrefix, int concurrency, int queueCapacity, int awaitTerminationSeconds) {
+      this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+      this.capacity = concurrency + queueCapacity;
+      this.awaitTerminationSeconds = awaitTerminationSeconds;
+      this.admitted = new Semaphore(capacity);
+      this.running = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      if (shutdown || !admitted.tryAcquire()) {
+        throw new TaskRejectedException("executor at capacity (" + capacity + ")");
+      }
+      try {
+        threadFactory.newThread(() -> run(task)).start();
+      } catch (RuntimeException e) {
+        admitted.release();
+        throw new TaskRejectedException("failed to start virtual thread", e);
+      }
+    }
+
+    private void run(Runnable task) {
+      try {
+        running.acquire();
+        try {
+          task.run();
+        } finally {
+          running.release();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        admitted.release();
+      }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+      shutdown = true;
+      if (awaitTerminationSeconds <= 0) return;
+      if (admitted.tryAcquire(capacity, awaitTerminationSeconds, TimeUnit.SECONDS)) {
+        admitted.release(capacity);
+      }
+    }
+  }
+}
@@ -1,11 +1,24 @@
 package com.prpo.entry;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.prpo.entry.helpers.CachingJwtDecoder;
+import com.prpo.entry.helpers.FileJwkSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
@@ -13,11 +26,51 @@ import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 public class SecurityConfig {
 
+  /**
+   * The Prometheus scrape endpoint sits outside the public API: it does not accept user JWTs,
+   * only HTTP Basic with the scrape credentials, and is closed when no password is configured.
+   */
+  @Bean
+  @Order(-1)
+  SecurityFilterChain prometheusFilterChain(
+      HttpSecurity http,
+      @Value("${prpo.metrics.scrape.username:prometheus}") String username,
+      @Value("${prpo.metrics.scrape.password:}") String password
+  ) throws Exception {
+    http
+        .securityMatcher(EndpointRequest.to("prometheus"))
+        .csrf(csrf -> csrf.disable())
+        .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .formLogin(f -> f.disable())
+        .logout(l -> l.disable());
+
+    if (password.isBlank()) {
+      return http
+          .httpBasic(b -> b.disable())
+          .authorizeHttpRequests(auth -> auth.anyRequest().denyAll())
+          .build();
+    }
+
+    UserDetails scraper = User.withUsername(username)
+        .password("{noop}" + password)
+        .roles("METRICS")
+        .build();
+
+    return http
+        .userDetailsService(new InMemoryUserDetailsManager(scraper))
+        .httpBasic(Customizer.withDefaults())
+        .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("METRICS"))
+        .build();
+  }
+
   @Bean
   @Order(0)
   SecurityFilterChain securityFilterChain(
@@ -50,12 +103,36 @@ public class SecurityConfig {
         .build();
   }
 
+  @Bean
+  @ConditionalOnProperty("prpo.auth0.jwks-file")
+  FileJwkSource fileJwkSource(
+      @Value("${prpo.auth0.jwks-file}") String jwksFile,
+      @Value("${prpo.auth0.jwks-refresh:5m}") Duration refreshInterval
+  ) throws IOException {
+    return new FileJwkSource(Path.of(jwksFile), refreshInterval);
+  }
+
   @Bean
   JwtDecoder jwtDecoder(
       @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
-      @Value("${prpo.auth0.audience}") String audience
+      @Value("${prpo.auth0.audience}") String audience,
+      @Value("${prpo.auth0.jwks-uri:}") String jwksUri,
+      @Value("${prpo.auth0.token-cache.max-entries:10000}") int tokenCacheMaxEntries,
+      @Value("${prpo.auth0.token-cache.max-ttl:10m}") Duration tokenCacheMaxTtl,
+      ObjectProvider<FileJwkSource> fileJwkSource
   ) {
-    NimbusJwtDecoder decoder = JwtDecoders.fromIssuerLocation(issuer);
+    NimbusJwtDecoder decoder;
+    FileJwkSource jwkSource = fileJwkSource.getIfAvailable();
+    if (jwkSource != null) {
+      DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+      processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+      processor.setJWTClaimsSetVerifier((claims, context) -> {});
+      decoder = new NimbusJwtDecoder(processor);
+    } else if (!jwksUri.isBlank()) {
+      decoder = NimbusJwtDecoder.withJwkSetUri(jwksUri).build();
+    } else {
+      decoder = JwtDecoders.fromIssuerLocation(issuer);
+    }
 
     OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
     OAuth2TokenValidator<Jwt> withAudience = jwt -> {
@@ -68,6 +145,6 @@ public class SecurityConfig {
     };
 
     decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(withIssuer, withAudience));
-    return decoder;
+    return new CachingJwtDecoder(decoder, tokenCacheMaxEntries, tokenCacheMaxTtl);
   }
 }
@@ -0,0 +1,125 @@
+package com.prpo.entry.controller;
+
+import com.prpo.entry.api.StreamingApi;
+import com.prpo.entry.helpers.Auth0UserResolver;
+import com.prpo.entry.helpers.CurrentUser;
+import com.prpo.entry.helpers.RouterUnavailableException;
+import com.prpo.entry.helpers.UpstreamException;
+import com.prpo.entry.logic.ChatService;
+import com.prpo.entry.logic.UserService;
+import com.prpo.entry.model.ErrorResponse;
+import com.prpo.entry.model.ErrorResponseError;
+import com.prpo.entry.model.SendMessageRequest;
+import com.prpo.entry.model.SendMessageResponse;
+import com.prpo.entry.model.SendMessageStreamDelta;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Sinks;
+
+@RestController
+public class ChatStreamController implements StreamingApi {
+
+  private final ChatService chatService;
+  private final UserService userService;
+  private final Auth0UserResolver userResolver;
+  private final TaskExecutor streamExecutor;
+  private final long streamTimeoutMs;
+
+  public ChatStreamController(
+      ChatService chatService,
+      UserService userService,
+      Auth0UserResolver userResolver,
+      @Qualifier("chatStreamExecutor") TaskExecutor streamExecutor,
+      @Value("${prpo.stream.timeout-ms:300000}") long streamTimeoutMs
+  ) {
+    this.chatService = chatService;
+    this.userService = userService;
+    this.userResolver = userResolver;
+    this.streamExecutor = streamExecutor;
+    this.streamTimeoutMs = streamTimeoutMs;
+  }
+
+  /**
+   * Replies 429 through {@code GlobalExceptionHandler} when the stream executor rejects the turn.
+   * A client that disconnects or times out cancels the router call.
+   */
+  @Override
+  public ResponseEntity<SseEmitter> sendMessageStream(String id, SendMessageRequest sendMessageRequest) {
+    CurrentUser user = userResolver.current();
+    String userId = user.auth0Sub();
+
+    userService.ensureUserExists(userId, user.email(), user.displayName());
+
+    SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+    Sinks.Empty<Void> cancelled = Sinks.empty();
+    emitter.onTimeout(cancelled::tryEmitEmpty);
+    emitter.onError(ex -> cancelled.tryEmitEmpty());
+    emitter.onCompletion(cancelled::tryEmitEmpty);
+
+    streamExecutor.execute(() -> relay(emitter, cancelled, userId, id, sendMessageRequest));
+
+    return ResponseEntity.ok()
+        .header("X-Accel-Buffering", "no")
+        .body(emitter);
+  }
+
+  private void relay(
+      SseEmitter emitter,
+      Sinks.Empty<Void> cancelled,
+      String userId,
+      String chatId,
+      SendMessageRequest req
+  ) {
+    try {
+      SendMessageResponse resp = chatService.sendMessageStream(
+          userId,
+          chatId,
+          req,
+          delta -> send(emitter, "delta", new SendMessageStreamDelta().content(delta)),
+          cancelled.asMono()
+      );
+      send(emitter, "done", resp);
+      emitter.complete();
+    } catch (UncheckedIOException ex) {
+      emitter.completeWithError(ex.getCause());
+    } catch (RuntimeException ex) {
+      String code;
+      if (ex instanceof IllegalArgumentException) {
+        code = "BAD_REQUEST";
+      } else if (ex instanceof RouterUnavailableException) {
+        code = "UPSTREAM_UNAVAILABLE";
+      } else if (ex instanceof UpstreamException) {
+        code = "UPSTREAM_ERROR";
+      } else {
+        code = "INTERNAL_ERROR";
+      }
+      ErrorResponseError err = new ErrorResponseError()
+          .code(code)
+          .message(ex.getMessage());
+      try {
+        send(emitter, "error", new ErrorResponse().error(err));
+        emitter.complete();
+      } catch (UncheckedIOException sendFailed) {
+        emitter.completeWithError(sendFailed.getCause());
+      }
+    }
+  }
+
+  /** Failed sends, including sends after the emitter timed out or completed, mean the client is gone. */
+  private static void send(SseEmitter emitter, String name, Object data) {
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (IllegalStateException e) {
+      throw new UncheckedIOException(new IOException("event stream already closed", e));
+    }
+  }
+}
@@ -2,12 +2,16 @@ package com.prpo.entry.controller;
 
 import com.prpo.entry.api.ChatsApi;
 import com.prpo.entry.helpers.Auth0UserResolver;
+import com.prpo.entry.helpers.CurrentUser;
+import com.prpo.entry.logic.ChatReads;
 import com.prpo.entry.logic.ChatService;
 import com.prpo.entry.logic.UserService;
 import com.prpo.entry.model.ChatDetail;
 import com.prpo.entry.model.CreateChatRequest;
 import com.prpo.entry.model.CreateChatResponse;
+import com.prpo.entry.model.DeleteChatsResponse;
 import com.prpo.entry.model.ListChatsResponse;
+import com.prpo.entry.model.ListMessagesResponse;
 import com.prpo.entry.model.SendMessageRequest;
 import com.prpo.entry.model.SendMessageResponse;
 import org.springframework.http.ResponseEntity;
@@ -17,15 +21,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class ChatsController implements ChatsApi {
 
   private final ChatService chatService;
+  private final ChatReads chatReads;
   private final UserService userService;
   private final Auth0UserResolver userResolver;
 
   public ChatsController(
       ChatService chatService,
+      ChatReads chatReads,
       UserService userService,
       Auth0UserResolver userResolver
   ) {
     this.chatService = chatService;
+    this.chatReads = chatReads;
     this.userService = userService;
     this.userResolver = userResolver;
   }
@@ -33,18 +40,15 @@ public class ChatsController implements ChatsApi {
   @Override
   public ResponseEntity<ListChatsResponse> listChats(Integer limit, String cursor) {
     String userId = userResolver.currentUserId();
-    return ResponseEntity.ok(chatService.listChats(userId, limit, cursor));
+    return ResponseEntity.ok(chatReads.listChats(userId, limit, cursor));
   }
 
   @Override
   public ResponseEntity<CreateChatResponse> createChat(CreateChatRequest req) {
-    String userId = userResolver.currentUserId();
+    CurrentUser user = userResolver.current();
+    String userId = user.auth0Sub();
 
-    userService.ensureUserExists(
-        userId,
-        userResolver.currentEmail(),
-        userResolver.currentDisplayName()
-    );
+    userService.ensureUserExists(userId, user.email(), user.displayName());
 
     return ResponseEntity
         .status(201)
@@ -54,20 +58,27 @@ public class ChatsController implements ChatsApi {
   @Override
   public ResponseEntity<ChatDetail> getChat(String id) {
     String userId = userResolver.currentUserId();
-    return ResponseEntity.ok(chatService.getChat(userId, id));
+    return ResponseEntity.ok(chatReads.getChat(userId, id));
   }
 
   @Override
-  public ResponseEntity<SendMessageResponse> sendMessage(String id, SendMessageRequest sendMessageRequest) {
+  public ResponseEntity<ListMessagesResponse> listMessages(String id, Integer limit, String before, String after) {
     String userId = userResolver.currentUserId();
+    return ResponseEntity.ok(chatReads.listMessages(userId, id, limit, before, after));
+  }
+
+  @Override
+  public ResponseEntity<SendMessageResponse> sendMessage(
+      String id,
+      SendMessageRequest sendMessageRequest,
+      String idempotencyKey
+  ) {
+    CurrentUser user = userResolver.current();
+    String userId = user.auth0Sub();
 
-    userService.ensureUserExists(
-        userId,
-        userResolver.currentEmail(),
-        userResolver.currentDisplayName()
-    );
+    userService.ensureUserExists(userId, user.email(), user.displayName());
 
-    return ResponseEntity.ok(chatService.sendMessage(userId, id, sendMessageRequest));
+    return ResponseEntity.ok(chatService.sendMessage(userId, id, sendMessageRequest, idempotencyKey));
   }
 
   @Override
@@ -76,4 +87,10 @@ public class ChatsController implements ChatsApi {
     chatService.deleteChat(userId, id);
     return ResponseEntity.noContent().build();
   }
+
+  @Override
+  public ResponseEntity<DeleteChatsResponse> deleteAllChats() {
+    String userId = userResolver.currentUserId();
+    return ResponseEntity.ok(chatService.deleteAllChats(userId));
+  }
 }
@@ -2,6 +2,7 @@ package com.prpo.entry.controller;
 
 import com.prpo.entry.api.UserApi;
 import com.prpo.entry.helpers.Auth0UserResolver;
+import com.prpo.entry.helpers.CurrentUser;
 import com.prpo.entry.model.User;
 import java.time.OffsetDateTime;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +19,12 @@ public class UserController implements UserApi {
 
   @Override
   public ResponseEntity<User> getCurrentUser() {
+    CurrentUser current = userResolver.current();
+
     User user = new User()
-        .id(userResolver.currentUserId())
-        .email(userResolver.currentEmail())
-        .displayName(userResolver.currentDisplayName())
+        .id(current.auth0Sub())
+        .email(current.email())
+        .displayName(current.displayName())
         .createdAt(OffsetDateTime.now());
 
     return ResponseEntity.ok(user);
@@ -35,6 +35,15 @@ public class ChatEntity {
   @Column(name = "last_model_id")
   private String lastModelId;
 
+  @Column(name = "message_count", insertable = false, updatable = false)
+  private Integer messageCount;
+
+  @Column(name = "last_message_preview", insertable = false, updatable = false)
+  private String lastMessagePreview;
+
+  @Column(name = "deleted_at", insertable = false, updatable = false)
+  private OffsetDateTime deletedAt;
+
   @PrePersist
   void prePersist() {
     if (id == null) id = "conv_" + UUID.randomUUID();
@@ -103,4 +112,20 @@ public class ChatEntity {
   public void setLastModelId(String lastModelId) { 
     this.lastModelId = lastModelId; 
   }
+
+  public Integer getMessageCount() {
+    return messageCount;
+  }
+
+  public void setMessageCount(Integer messageCount) {
+    this.messageCount = messageCount;
+  }
+
+  public String getLastMessagePreview() {
+    return lastMessagePreview;
+  }
+
+  public OffsetDateTime getDeletedAt() {
+    return deletedAt;
+  }
 }
@@ -0,0 +1,63 @@
+package com.prpo.entry.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "conversation_summaries", schema = "entry")
+public class ConversationSummaryEntity {
+
+  @Id
+  @Column(name = "chat_id", nullable = false, updatable = false)
+  private String chatId;
+
+  @Column(name = "summary", nullable = false, columnDefinition = "text")
+  private String summary;
+
+  @Column(name = "covered_until", nullable = false)
+  private OffsetDateTime coveredUntil;
+
+  @Column(name = "covered_until_id", nullable = false)
+  private String coveredUntilId;
+
+  @Column(name = "covered_messages", nullable = false)
+  private int coveredMessages;
+
+  @Column(name = "token_count", nullable = false)
+  private int tokenCount;
+
+  @Column(name = "updated_at", nullable = false)
+  private OffsetDateTime updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    updatedAt = OffsetDateTime.now();
+  }
+
+  public String getChatId() { return chatId; }
+  public void setChatId(String chatId) { this.chatId = chatId; }
+
+  public String getSummary() { return summary; }
+  public void setSummary(String summary) { this.summary = summary; }
+
+  public OffsetDateTime getCoveredUntil() { return coveredUntil; }
+  public void setCoveredUntil(OffsetDateTime coveredUntil) { this.coveredUntil = coveredUntil; }
+
+  public String getCoveredUntilId() { return coveredUntilId; }
+  public void setCoveredUntilId(String coveredUntilId) { this.coveredUntilId = coveredUntilId; }
+
+  public int getCoveredMessages() { return coveredMessages; }
+  public void setCoveredMessages(int coveredMessages) { this.coveredMessages = coveredMessages; }
+
+  public int getTokenCount() { return tokenCount; }
+  public void setTokenCount(int tokenCount) { this.tokenCount = tokenCount; }
+
+  public OffsetDateTime getUpdatedAt() { return updatedAt; }
+  public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,59 @@
+package com.prpo.entry.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * zlib codec for {@code entry.messages.content_compressed}. Uses {@link Deflater#BEST_SPEED}:
+ * chat text compresses well even at the fastest level, and the write sits on the turn's hot path.
+ */
+public final class MessageContentCodec {
+
+  private MessageContentCodec() {}
+
+  public static byte[] compress(byte[] utf8) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(utf8);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, utf8.length / 3));
+      byte[] buf = new byte[8192];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buf);
+        out.write(buf, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  public static String decompress(byte[] compressed) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+      byte[] buf = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buf);
+        if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("truncated compressed message content");
+        }
+        out.write(buf, 0, n);
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("corrupt compressed message content", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /** Full content of a stored row: {@code content} alone, or the decompressed body when present. */
+  public static String resolve(String content, byte[] compressed) {
+    return compressed != null ? decompress(compressed) : content;
+  }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
@@ -42,9 +43,16 @@ public class MessageEntity {
   @Column(name = "role", nullable = false)
   private Role role;
 
+  /** Full text, or only a plaintext preview when {@link #contentCompressed} is set. */
   @Column(name = "content", nullable = false, columnDefinition = "text")
   private String content;
 
+  @Column(name = "content_compressed")
+  private byte[] contentCompressed;
+
+  @Transient
+  private String decompressed;
+
   @Column(name = "created_at", nullable = false, updatable = false)
   private OffsetDateTime createdAt;
 
@@ -57,6 +65,9 @@ public class MessageEntity {
   @Column(name = "request_id")
   private String requestId;
 
+  @Column(name = "token_count")
+  private Integer tokenCount;
+
   @PrePersist
   void prePersist() {
     if (id == null) id = "msg_" + UUID.randomUUID();
@@ -87,12 +98,27 @@ public class MessageEntity {
     this.role = role;
   }
 
+  /** Full message text; a compressed body is inflated on first access and kept for the entity's lifetime. */
   public String getContent() {
-    return content;
+    if (contentCompressed == null) return content;
+    if (decompressed == null) decompressed = MessageContentCodec.decompress(contentCompressed);
+    return decompressed;
   }
 
   public void setContent(String content) {
     this.content = content;
+    this.contentCompressed = null;
+    this.decompressed = null;
+  }
+
+  public void setCompressedContent(String content, byte[] compressed, String preview) {
+    this.content = preview;
+    this.contentCompressed = compressed;
+    this.decompressed = content;
+  }
+
+  public boolean isContentCompressed() {
+    return contentCompressed != null;
   }
 
   public OffsetDateTime getCreatedAt() {
@@ -126,4 +152,12 @@ public class MessageEntity {
   public void setRequestId(String requestId) {
     this.requestId = requestId;
   }
+
+  public Integer getTokenCount() {
+    return tokenCount;
+  }
+
+  public void setTokenCount(Integer tokenCount) {
+    this.tokenCount = tokenCount;
+  }
 }
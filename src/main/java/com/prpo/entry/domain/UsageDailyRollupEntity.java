@@ -0,0 +1,103 @@
+package com.prpo.entry.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "usage_daily_rollups", schema = "entry")
+public class UsageDailyRollupEntity {
+
+  @Embeddable
+  public static class Key implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "provider_id", nullable = false)
+    private String providerId;
+
+    @Column(name = "model_id", nullable = false)
+    private String modelId;
+
+    protected Key() {}
+
+    public Key(String userId, LocalDate day, String providerId, String modelId) {
+      this.userId = userId;
+      this.day = day;
+      this.providerId = providerId;
+      this.modelId = modelId;
+    }
+
+    public String getUserId() { return userId; }
+    public LocalDate getDay() { return day; }
+    public String getProviderId() { return providerId; }
+    public String getModelId() { return modelId; }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key k)) return false;
+      return Objects.equals(userId, k.userId)
+          && Objects.equals(day, k.day)
+          && Objects.equals(providerId, k.providerId)
+          && Objects.equals(modelId, k.modelId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, day, providerId, modelId);
+    }
+  }
+
+  @EmbeddedId
+  private Key id;
+
+  @Column(name = "requests", nullable = false)
+  private long requests;
+
+  @Column(name = "tokens", nullable = false)
+  private long tokens;
+
+  @Column(name = "cost", nullable = false)
+  private double cost;
+
+  @Column(name = "latency_sum_ms", nullable = false)
+  private long latencySumMs;
+
+  @Column(name = "latency_count", nullable = false)
+  private long latencyCount;
+
+  @Column(name = "updated_at", nullable = false)
+  private OffsetDateTime updatedAt;
+
+  public Key getId() { return id; }
+  public void setId(Key id) { this.id = id; }
+
+  public long getRequests() { return requests; }
+  public void setRequests(long requests) { this.requests = requests; }
+
+  public long getTokens() { return tokens; }
+  public void setTokens(long tokens) { this.tokens = tokens; }
+
+  public double getCost() { return cost; }
+  public void setCost(double cost) { this.cost = cost; }
+
+  public long getLatencySumMs() { return latencySumMs; }
+  public void setLatencySumMs(long latencySumMs) { this.latencySumMs = latencySumMs; }
+
+  public long getLatencyCount() { return latencyCount; }
+  public void setLatencyCount(long latencyCount) { this.latencyCount = latencyCount; }
+
+  public OffsetDateTime getUpdatedAt() { return updatedAt; }
+  public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,138 @@
+package com.prpo.entry.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "usage_outbox", schema = "entry")
+public class UsageOutboxEntity {
+
+  public enum Status {
+    pending,
+    dead
+  }
+
+  @Id
+  @Column(name = "event_id", nullable = false, updatable = false)
+  private String eventId;
+
+  @Column(name = "request_id", nullable = false, updatable = false)
+  private String requestId;
+
+  @Column(name = "user_id", nullable = false, updatable = false)
+  private String userId;
+
+  @Column(name = "conversation_id", nullable = false, updatable = false)
+  private String conversationId;
+
+  @Column(name = "provider_id", updatable = false)
+  private String providerId;
+
+  @Column(name = "model_id", updatable = false)
+  private String modelId;
+
+  @Column(name = "prompt_tokens", updatable = false)
+  private Integer promptTokens;
+
+  @Column(name = "completion_tokens", updatable = false)
+  private Integer completionTokens;
+
+  @Column(name = "total_tokens", updatable = false)
+  private Integer totalTokens;
+
+  @Column(name = "cost", updatable = false)
+  private Double cost;
+
+  @Column(name = "currency", updatable = false)
+  private String currency;
+
+  @Column(name = "latency_ms", updatable = false)
+  private Integer latencyMs;
+
+  @Column(name = "occurred_at", nullable = false, updatable = false)
+  private OffsetDateTime occurredAt;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false)
+  private Status status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private OffsetDateTime nextAttemptAt;
+
+  @Column(name = "last_error")
+  private String lastError;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private OffsetDateTime createdAt;
+
+  @PrePersist
+  void prePersist() {
+    OffsetDateTime now = OffsetDateTime.now();
+    if (status == null) status = Status.pending;
+    if (nextAttemptAt == null) nextAttemptAt = now;
+    if (createdAt == null) createdAt = now;
+  }
+
+  public String getEventId() { return eventId; }
+  public void setEventId(String eventId) { this.eventId = eventId; }
+
+  public String getRequestId() { return requestId; }
+  public void setRequestId(String requestId) { this.requestId = requestId; }
+
+  public String getUserId() { return userId; }
+  public void setUserId(String userId) { this.userId = userId; }
+
+  public String getConversationId() { return conversationId; }
+  public void setConversationId(String conversationId) { this.conversationId = conversationId; }
+
+  public String getProviderId() { return providerId; }
+  public void setProviderId(String providerId) { this.providerId = providerId; }
+
+  public String getModelId() { return modelId; }
+  public void setModelId(String modelId) { this.modelId = modelId; }
+
+  public Integer getPromptTokens() { return promptTokens; }
+  public void setPromptTokens(Integer promptTokens) { this.promptTokens = promptTokens; }
+
+  public Integer getCompletionTokens() { return completionTokens; }
+  public void setCompletionTokens(Integer completionTokens) { this.completionTokens = completionTokens; }
+
+  public Integer getTotalTokens() { return totalTokens; }
+  public void setTotalTokens(Integer totalTokens) { this.totalTokens = totalTokens; }
+
+  public Double getCost() { return cost; }
+  public void setCost(Double cost) { this.cost = cost; }
+
+  public String getCurrency() { return currency; }
+  public void setCurrency(String currency) { this.currency = currency; }
+
+  public Integer getLatencyMs() { return latencyMs; }
+  public void setLatencyMs(Integer latencyMs) { this.latencyMs = latencyMs; }
+
+  public OffsetDateTime getOccurredAt() { return occurredAt; }
+  public void setOccurredAt(OffsetDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+  public Status getStatus() { return status; }
+  public void setStatus(Status status) { this.status = status; }
+
+  public int getAttempts() { return attempts; }
+  public void setAttempts(int attempts) { this.attempts = attempts; }
+
+  public OffsetDateTime getNextAttemptAt() { return nextAttemptAt; }
+  public void setNextAttemptAt(OffsetDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+  public String getLastError() { return lastError; }
+  public void setLastError(String lastError) { this.lastError = lastError; }
+
+  public OffsetDateTime getCreatedAt() { return createdAt; }
+  public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -23,6 +23,9 @@ public class UserEntity {
   @Column(name = "created_at")
   private OffsetDateTime createdAt;
 
+  @Column(name = "chat_count", insertable = false, updatable = false)
+  private Integer chatCount;
+
   public String getId() { return id; }
   public void setId(String id) { this.id = id; }
 
@@ -34,4 +37,6 @@ public class UserEntity {
 
   public OffsetDateTime getCreatedAt() { return createdAt; }
   public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+  public Integer getChatCount() { return chatCount; }
 }
@@ -1,35 +1,49 @@
 package com.prpo.entry.helpers;
 
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Component
 public class Auth0UserResolver {
 
-  public String currentUserId() {
-    Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-    if (!(principal instanceof Jwt jwt)) {
-      throw new IllegalStateException("Expected JWT principal");
+  private static final String CURRENT_USER_ATTRIBUTE = Auth0UserResolver.class.getName() + ".CURRENT_USER";
+
+  /**
+   * Resolves the caller from the JWT once per request; later calls in the same request
+   * return the cached record.
+   */
+  public CurrentUser current() {
+    RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+    if (attrs != null) {
+      Object cached = attrs.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      if (cached instanceof CurrentUser user) return user;
     }
-    return jwt.getSubject();
-  }
 
-  public String currentEmail() {
-    Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-    if (!(principal instanceof Jwt jwt)) {
-      return null;
+    CurrentUser user = resolve();
+    if (attrs != null) {
+      attrs.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
     }
-    return jwt.getClaimAsString("email");
+    return user;
   }
 
-  public String currentDisplayName() {
-    Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+  public String currentUserId() {
+    return current().auth0Sub();
+  }
+
+  private CurrentUser resolve() {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    Object principal = auth != null ? auth.getPrincipal() : null;
     if (!(principal instanceof Jwt jwt)) {
-      return null;
+      throw new IllegalStateException("Expected JWT principal");
     }
+
     String name = jwt.getClaimAsString("name");
-    if (name != null) return name;
-    return jwt.getClaimAsString("nickname");
+    if (name == null) name = jwt.getClaimAsString("nickname");
+
+    return new CurrentUser(jwt.getSubject(), jwt.getClaimAsString("email"), name);
   }
 }
@@ -0,0 +1,89 @@
+package com.prpo.entry.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Remembers tokens that already passed signature and claim validation, keyed by the SHA-256
+ * of the raw token, until the token's {@code exp} (capped by {@code maxTtl}). Rejected tokens
+ * are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private record Verified(Jwt jwt, Instant expiresAt) {}
+
+  private final JwtDecoder delegate;
+  private final Duration maxTtl;
+  private final int maxEntries;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<String, Verified> verified;
+
+  public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl) {
+    this.delegate = delegate;
+    this.maxEntries = maxEntries;
+    this.maxTtl = maxTtl;
+    this.verified = new LinkedHashMap<>(1024, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+        return size() > CachingJwtDecoder.this.maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    if (maxEntries <= 0) return delegate.decode(token);
+
+    String key = hash(token);
+    Instant now = Instant.now();
+
+    lock.lock();
+    try {
+      Verified hit = verified.get(key);
+      if (hit != null) {
+        if (now.isBefore(hit.expiresAt())) return hit.jwt();
+        verified.remove(key);
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    Jwt jwt = delegate.decode(token);
+
+    Instant expiresAt = now.plus(maxTtl);
+    if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(expiresAt)) {
+      expiresAt = jwt.getExpiresAt();
+    }
+
+    if (now.isBefore(expiresAt)) {
+      lock.lock();
+      try {
+        verified.put(key, new Verified(jwt, expiresAt));
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    return jwt;
+  }
+
+  private static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.prpo.entry.helpers;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the last {@code window} calls. Callers ask
+ * {@link #tryAcquire()} before a call and report the outcome with {@link #onSuccess()} or
+ * {@link #onFailure()}.
+ */
+final class CircuitBreaker {
+
+  enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final RouterProperties.Breaker cfg;
+  private final long openNanos;
+  private final LongSupplier nanoTime;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final boolean[] outcomes;
+  private int next;
+  private int recorded;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAtNanos;
+  private int halfOpenInFlight;
+  private int halfOpenSucceeded;
+
+  CircuitBreaker(RouterProperties.Breaker cfg) {
+    this(cfg, System::nanoTime);
+  }
+
+  CircuitBreaker(RouterProperties.Breaker cfg, LongSupplier nanoTime) {
+    this.cfg = cfg;
+    this.openNanos = cfg.openDuration().toNanos();
+    this.nanoTime = nanoTime;
+    this.outcomes = new boolean[Math.max(1, cfg.window())];
+  }
+
+  State state() {
+    lock.lock();
+    try {
+      return state;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** True while calls are being rejected outright; does not take a half-open trial slot. */
+  boolean isOpen() {
+    if (!cfg.enabled()) return false;
+    lock.lock();
+    try {
+      return state == State.OPEN && nanoTime.getAsLong() - openedAtNanos < openNanos;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean tryAcquire() {
+    if (!cfg.enabled()) return true;
+    lock.lock();
+    try {
+      if (state == State.OPEN) {
+        if (nanoTime.getAsLong() - openedAtNanos < openNanos) return false;
+        state = State.HALF_OPEN;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+      }
+      if (state == State.HALF_OPEN) {
+        if (halfOpenInFlight >= cfg.halfOpenCalls()) return false;
+        halfOpenInFlight++;
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void onSuccess() {
+    if (!cfg.enabled()) return;
+    lock.lock();
+    try {
+      if (state == State.HALF_OPEN) {
+        if (++halfOpenSucceeded >= cfg.halfOpenCalls()) close();
+      } else if (state == State.CLOSED) {
+        record(false);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void onFailure() {
+    if (!cfg.enabled()) return;
+    lock.lock();
+    try {
+      if (state == State.HALF_OPEN) {
+        open();
+      } else if (state == State.CLOSED) {
+        record(true);
+        if (recorded >= cfg.minimumCalls() && failures >= cfg.failureRateThreshold() * recorded) open();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void record(boolean failed) {
+    if (recorded == outcomes.length) {
+      if (outcomes[next]) failures--;
+    } else {
+      recorded++;
+    }
+    outcomes[next] = failed;
+    if (failed) failures++;
+    next = (next + 1) % outcomes.length;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAtNanos = nanoTime.getAsLong();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    next = 0;
+    recorded = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,77 @@
+package com.prpo.entry.helpers;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JWK set read from a local file and re-read in the background whenever the file changes.
+ * Lets the service verify tokens without issuer discovery or a JWKS fetch at startup.
+ */
+public class FileJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(FileJwkSource.class);
+
+  private final Path path;
+  private final ScheduledExecutorService refresher;
+
+  private volatile JWKSet jwkSet;
+  private volatile FileTime loadedModifiedAt;
+
+  public FileJwkSource(Path path, Duration refreshInterval) throws IOException {
+    this.path = path;
+    load();
+
+    this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "jwks-file-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+    long periodMs = refreshInterval.toMillis();
+    refresher.scheduleWithFixedDelay(this::refresh, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+    return jwkSelector.select(jwkSet);
+  }
+
+  private void refresh() {
+    try {
+      FileTime modifiedAt = Files.getLastModifiedTime(path);
+      if (!modifiedAt.equals(loadedModifiedAt)) load();
+    } catch (IOException | RuntimeException e) {
+      log.warn("failed to reload JWKS from {}, keeping previous keys", path, e);
+    }
+  }
+
+  private void load() throws IOException {
+    FileTime modifiedAt = Files.getLastModifiedTime(path);
+    try {
+      this.jwkSet = JWKSet.parse(Files.readString(path));
+    } catch (java.text.ParseException e) {
+      throw new IOException("invalid JWKS file " + path, e);
+    }
+    this.loadedModifiedAt = modifiedAt;
+    log.info("loaded {} signing keys from {}", jwkSet.getKeys().size(), path);
+  }
+
+  @Override
+  public void close() {
+    refresher.shutdownNow();
+  }
+}
@@ -2,6 +2,7 @@ package com.prpo.entry.helpers;
 
 import com.prpo.entry.model.ErrorResponse;
 import com.prpo.entry.model.ErrorResponseError;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,4 +21,48 @@ public class GlobalExceptionHandler {
         .status(HttpStatus.BAD_REQUEST)
         .body(new ErrorResponse().error(err));
   }
+
+  @ExceptionHandler(IdempotencyConflictException.class)
+  public ResponseEntity<ErrorResponse> handleIdempotencyConflict(IdempotencyConflictException ex) {
+    ErrorResponseError err = new ErrorResponseError()
+        .code("IDEMPOTENCY_CONFLICT")
+        .message(ex.getMessage());
+
+    return ResponseEntity
+        .status(HttpStatus.CONFLICT)
+        .body(new ErrorResponse().error(err));
+  }
+
+  @ExceptionHandler(TaskRejectedException.class)
+  public ResponseEntity<ErrorResponse> handleTaskRejected(TaskRejectedException ex) {
+    ErrorResponseError err = new ErrorResponseError()
+        .code("TOO_MANY_REQUESTS")
+        .message("too many requests in progress, try again later");
+
+    return ResponseEntity
+        .status(HttpStatus.TOO_MANY_REQUESTS)
+        .body(new ErrorResponse().error(err));
+  }
+
+  @ExceptionHandler(RouterUnavailableException.class)
+  public ResponseEntity<ErrorResponse> handleRouterUnavailable(RouterUnavailableException ex) {
+    ErrorResponseError err = new ErrorResponseError()
+        .code("UPSTREAM_UNAVAILABLE")
+        .message(ex.getMessage());
+
+    return ResponseEntity
+        .status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body(new ErrorResponse().error(err));
+  }
+
+  @ExceptionHandler(UpstreamException.class)
+  public ResponseEntity<ErrorResponse> handleUpstream(UpstreamException ex) {
+    ErrorResponseError err = new ErrorResponseError()
+        .code("UPSTREAM_ERROR")
+        .message(ex.getMessage());
+
+    return ResponseEntity
+        .status(HttpStatus.BAD_GATEWAY)
+        .body(new ErrorResponse().error(err));
+  }
 }
@@ -0,0 +1,9 @@
+package com.prpo.entry.helpers;
+
+/** An {@code Idempotency-Key} was reused for a different request. */
+public class IdempotencyConflictException extends RuntimeException {
+
+  public IdempotencyConflictException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,109 @@
+package com.prpo.entry.helpers;
+
+import io.netty.channel.ChannelOption;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Builds the HTTP clients used for the internal services: one Reactor Netty connection pool per
+ * service shared by its blocking {@link RestClient} and reactive {@link WebClient}, HTTP/2 with
+ * HTTP/1.1 fallback, gzip responses and explicit connect/read timeouts. Pool metrics are
+ * published as {@code reactor.netty.connection.provider.*} tagged with the pool name.
+ */
+@Component
+public class InternalHttpClients implements DisposableBean {
+
+  private static final Duration EVICTION_INTERVAL = Duration.ofSeconds(30);
+
+  private final InternalHttpProperties properties;
+  private final List<ConnectionProvider> pools = new CopyOnWriteArrayList<>();
+
+  public InternalHttpClients(InternalHttpProperties properties) {
+    this.properties = properties;
+  }
+
+  public InternalHttpProperties.Client router() {
+    return properties.router();
+  }
+
+  public InternalHttpProperties.Client usage() {
+    return properties.usage();
+  }
+
+  public HttpClient httpClient(String name, String baseUrl, InternalHttpProperties.Client cfg) {
+    ConnectionProvider pool = ConnectionProvider.builder(name)
+        .maxConnections(cfg.maxConnections())
+        .pendingAcquireMaxCount(cfg.pendingAcquireMaxCount())
+        .pendingAcquireTimeout(cfg.pendingAcquireTimeout())
+        .maxIdleTime(cfg.maxIdleTime())
+        .maxLifeTime(cfg.maxLifeTime())
+        .evictInBackground(EVICTION_INTERVAL)
+        .metrics(true)
+        .build();
+    pools.add(pool);
+
+    boolean tls = "https".equalsIgnoreCase(URI.create(baseUrl).getScheme());
+    HttpProtocol[] protocols = !cfg.http2()
+        ? new HttpProtocol[] {HttpProtocol.HTTP11}
+        : tls
+            ? new HttpProtocol[] {HttpProtocol.H2, HttpProtocol.HTTP11}
+            : new HttpProtocol[] {HttpProtocol.H2C, HttpProtocol.HTTP11};
+
+    HttpClient client = HttpClient.create(pool)
+        .protocol(protocols)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) cfg.connectTimeout().toMillis())
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .responseTimeout(cfg.readTimeout())
+        .compress(cfg.compressResponses());
+    return tls ? client.secure() : client;
+  }
+
+  public RestClient restClient(RestClient.Builder builder, HttpClient httpClient, String baseUrl) {
+    return builder
+        .baseUrl(baseUrl)
+        .requestFactory(new ReactorClientHttpRequestFactory(httpClient))
+        .build();
+  }
+
+  public WebClient webClient(WebClient.Builder builder, HttpClient httpClient, String baseUrl) {
+    return builder
+        .baseUrl(baseUrl)
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .build();
+  }
+
+  @Override
+  public void destroy() {
+    pools.forEach(ConnectionProvider::dispose);
+  }
+
+  /** Gzips {@code body} when request compression is enabled and the body is large enough. */
+  public static boolean shouldCompress(InternalHttpProperties.Client cfg, byte[] body) {
+    return cfg.compressRequests() && body.length >= cfg.compressRequestsMinBytes();
+  }
+
+  public static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
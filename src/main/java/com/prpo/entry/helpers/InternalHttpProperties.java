@@ -0,0 +1,27 @@
+package com.prpo.entry.helpers;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/** Connection pool, protocol and timeout settings for calls to the internal services. */
+@ConfigurationProperties(prefix = "prpo.http")
+public record InternalHttpProperties(
+    @DefaultValue Client router,
+    @DefaultValue Client usage
+) {
+
+  public record Client(
+      @DefaultValue("200") int maxConnections,
+      @DefaultValue("1000") int pendingAcquireMaxCount,
+      @DefaultValue("5s") Duration pendingAcquireTimeout,
+      @DefaultValue("60s") Duration maxIdleTime,
+      @DefaultValue("10m") Duration maxLifeTime,
+      @DefaultValue("2s") Duration connectTimeout,
+      @DefaultValue("60s") Duration readTimeout,
+      @DefaultValue("true") boolean http2,
+      @DefaultValue("true") boolean compressResponses,
+      @DefaultValue("false") boolean compressRequests,
+      @DefaultValue("8192") int compressRequestsMinBytes
+  ) {}
+}
@@ -0,0 +1,46 @@
+package com.prpo.entry.helpers;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Latencies of the last {@code size} calls, with a percentile recomputed every few samples. */
+final class LatencyWindow {
+
+  private static final int MIN_SAMPLES = 20;
+  private static final int RECOMPUTE_EVERY = 32;
+
+  private final double percentile;
+  private final long[] samples;
+  private final ReentrantLock lock = new ReentrantLock();
+  private int next;
+  private int count;
+  private int sinceRecompute = RECOMPUTE_EVERY - 1;
+  private volatile long cachedMillis = -1;
+
+  LatencyWindow(int size, double percentile) {
+    this.samples = new long[Math.max(MIN_SAMPLES, size)];
+    this.percentile = percentile;
+  }
+
+  void record(long millis) {
+    lock.lock();
+    try {
+      samples[next] = millis;
+      next = (next + 1) % samples.length;
+      if (count < samples.length) count++;
+      if (count >= MIN_SAMPLES && ++sinceRecompute >= RECOMPUTE_EVERY) {
+        sinceRecompute = 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        cachedMillis = sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The configured percentile in milliseconds, or -1 until enough samples were seen. */
+  long percentileMillis() {
+    return cachedMillis;
+  }
+}
@@ -0,0 +1,60 @@
+package com.prpo.entry.helpers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams JFR {@code jdk.VirtualThreadPinned} events in-process, counting them and logging
+ * the top frames of each pin that exceeds the threshold. A cheaper, always-available
+ * alternative to running with {@code -Djdk.tracePinnedThreads=short}.
+ */
+@Component
+@ConditionalOnProperty(name = "prpo.threads.pinning-monitor.enabled", havingValue = "true")
+public class PinnedThreadMonitor implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+  private static final int LOGGED_FRAMES = 8;
+
+  private final RecordingStream stream;
+  private final Counter pinned;
+
+  public PinnedThreadMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${prpo.threads.pinning-monitor.threshold:20ms}") Duration threshold
+  ) {
+    this.pinned = meterRegistry.counter("prpo.threads.virtual.pinned");
+
+    this.stream = new RecordingStream();
+    stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+    stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+    stream.startAsync();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.increment();
+    if (!log.isWarnEnabled()) return;
+
+    List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+    String top = frames.stream()
+        .limit(LOGGED_FRAMES)
+        .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+        .collect(Collectors.joining("\n  at "));
+    log.warn("virtual thread pinned for {} ms\n  at {}", event.getDuration().toMillis(), top);
+  }
+
+  @Override
+  public void close() {
+    stream.close();
+  }
+}
@@ -1,11 +1,34 @@
 package com.prpo.entry.helpers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 
 @Component
 public class RouterClient {
@@ -21,8 +44,16 @@ public class RouterClient {
       Integer completionTokens,
       Integer totalTokens,
       Double cost,
-      String currency
-  ) {}
+      String currency,
+      boolean cached
+  ) {
+
+    /** The same answer served from {@link RouterResponseCache}: nothing was spent on it. */
+    RouteResult fromCache() {
+      return new RouteResult(assistantContent, providerId, modelId, 0, promptTokens, completionTokens,
+          totalTokens, 0.0, currency, true);
+    }
+  }
 
   private record ModelOverrides(String forceProviderId, String forceModelId) {}
 
@@ -48,18 +79,70 @@ public class RouterClient {
       String currency
   ) {}
 
+  private record RouteStreamDelta(String content) {}
+
+  private record RouteStreamError(String code, String message) {}
+
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+      new ParameterizedTypeReference<>() {};
+
   private final RestClient client;
+  private final WebClient reactiveClient;
+  private final ObjectMapper objectMapper;
+  private final InternalHttpProperties.Client httpSettings;
   private final String internalServiceToken;
 
+  private final RouterResponseCache responseCache;
+  private final RouterProperties.Hedge hedge;
+  private final LatencyWindow latencies;
+  private final CircuitBreaker breaker;
+  private final AtomicLong hedgeableCalls = new AtomicLong();
+  private final AtomicLong hedgesSent = new AtomicLong();
+
+  private final MeterRegistry meterRegistry;
+  private final Counter hedgesWon;
+  private final Counter hedgesOverBudget;
+
   public RouterClient(
       RestClient.Builder restClientBuilder,
+      WebClient.Builder webClientBuilder,
+      InternalHttpClients httpClients,
+      RouterProperties routerProperties,
+      RouterResponseCache responseCache,
+      MeterRegistry meterRegistry,
+      ObjectMapper objectMapper,
       @Value("${ROUTER_BASE_URL}") String routerBaseUrl,
       @Value("${INTERNAL_SERVICE_TOKEN}") String internalServiceToken
   ) {
-    this.client = restClientBuilder
-        .baseUrl(routerBaseUrl)
-        .build();
+    this.httpSettings = httpClients.router();
+    HttpClient httpClient = httpClients.httpClient("router", routerBaseUrl, httpSettings);
+    this.client = httpClients.restClient(restClientBuilder, httpClient, routerBaseUrl);
+    this.reactiveClient = httpClients.webClient(webClientBuilder, httpClient, routerBaseUrl);
+    this.objectMapper = objectMapper;
     this.internalServiceToken = internalServiceToken;
+
+    this.responseCache = responseCache;
+    this.hedge = routerProperties.hedge();
+    this.latencies = new LatencyWindow(hedge.window(), hedge.percentile());
+    this.breaker = new CircuitBreaker(routerProperties.circuitBreaker());
+
+    this.meterRegistry = meterRegistry;
+    this.hedgesWon = meterRegistry.counter("prpo.router.hedges", "result", "won");
+    this.hedgesOverBudget = meterRegistry.counter("prpo.router.hedges", "result", "over_budget");
+    meterRegistry.gauge("prpo.router.circuit.state", breaker, b -> b.state().ordinal());
+  }
+
+  /**
+   * Fails fast with {@link RouterUnavailableException} while the circuit breaker is open. With the
+   * response cache enabled a cached answer may still serve the turn, so the breaker is left to
+   * {@link #route} and {@link #routeStream}, which apply it only on a cache miss.
+   */
+  public void ensureAvailable() {
+    if (responseCache.enabled()) return;
+    if (breaker.isOpen()) {
+      meterRegistry.counter("prpo.router.calls", "mode", "route", "outcome", "short_circuited").increment();
+      throw new RouterUnavailableException("router is unavailable, try again later");
+    }
   }
 
   public RouteResult route(
@@ -71,6 +154,12 @@ public class RouterClient {
       String forceProviderId,
       String forceModelId
   ) {
+    String cacheKey = cacheKey(userId, forceProviderId, forceModelId, message, context);
+    RouteResult cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+    if (cached != null) {
+      return cached.fromCache();
+    }
+
     RouteRequest body = new RouteRequest(
         requestId,
         userId,
@@ -80,20 +169,296 @@ public class RouterClient {
         new ModelOverrides(forceProviderId, forceModelId)
     );
 
-    RouteResponse resp = client
+    JsonBody json = encode(body);
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    RouteResponse resp;
+    try {
+      resp = guarded("route", () -> {
+        long startedAt = System.nanoTime();
+        Duration hedgeDelay = hedgeDelay();
+        RouteResponse r = hedgeDelay != null
+            ? hedged(json, hedgeDelay).block()
+            : client
+                .post()
+                .uri("/internal/router/route")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + internalServiceToken)
+                .headers(json::applyTo)
+                .body(json.bytes())
+                .retrieve()
+                .body(RouteResponse.class);
+
+        if (r == null) {
+          throw new IllegalStateException("Router returned empty response");
+        }
+        latencies.record(Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        return r;
+      });
+    } catch (RuntimeException e) {
+      recordCall(sample, "route", null, e);
+      throw e;
+    }
+    recordCall(sample, "route", resp, null);
+
+    return remember(cacheKey, toResult(resp));
+  }
+
+  /**
+   * Sends the request and, if no answer arrived after {@code delay}, a duplicate with the same
+   * {@code requestId}. The first successful response wins and the other call is cancelled; the
+   * call fails only once every attempt sent has failed.
+   */
+  private Mono<RouteResponse> hedged(JsonBody json, Duration delay) {
+    return Mono.create(sink -> {
+      AtomicInteger pending = new AtomicInteger(1);
+      Disposable.Composite inFlight = Disposables.composite();
+      sink.onDispose(inFlight);
+
+      BiConsumer<Mono<RouteResponse>, Boolean> launch = (attempt, isHedge) -> inFlight.add(attempt.subscribe(
+          r -> {
+            if (isHedge) hedgesWon.increment();
+            sink.success(r);
+          },
+          e -> {
+            if (pending.decrementAndGet() == 0) sink.error(e);
+          },
+          () -> {
+            if (pending.decrementAndGet() == 0) sink.error(new IllegalStateException("Router returned empty response"));
+          }
+      ));
+
+      launch.accept(routeAsync(json), false);
+      inFlight.add(Mono.delay(delay).subscribe(t -> {
+        if (!takeHedgeBudget()) {
+          hedgesOverBudget.increment();
+          return;
+        }
+        pending.incrementAndGet();
+        meterRegistry.counter("prpo.router.hedges", "result", "sent").increment();
+        launch.accept(routeAsync(json), true);
+      }));
+    });
+  }
+
+  private Mono<RouteResponse> routeAsync(JsonBody json) {
+    return reactiveClient
         .post()
         .uri("/internal/router/route")
         .contentType(MediaType.APPLICATION_JSON)
         .accept(MediaType.APPLICATION_JSON)
         .header(HttpHeaders.AUTHORIZATION, "Bearer " + internalServiceToken)
-        .body(body)
+        .headers(json::applyTo)
+        .bodyValue(json.bytes())
         .retrieve()
-        .body(RouteResponse.class);
+        .bodyToMono(RouteResponse.class);
+  }
+
+  private Duration hedgeDelay() {
+    if (!hedge.enabled()) return null;
+    hedgeableCalls.incrementAndGet();
+    if (hedge.delay() != null) return hedge.delay();
+
+    long observed = latencies.percentileMillis();
+    if (observed < 0) return null;
+    return Duration.ofMillis(Math.max(observed, hedge.minDelay().toMillis()));
+  }
+
+  private boolean takeHedgeBudget() {
+    long sent = hedgesSent.incrementAndGet();
+    if (sent <= hedge.maxRatio() * hedgeableCalls.get()) return true;
+    hedgesSent.decrementAndGet();
+    return false;
+  }
+
+  /**
+   * Runs a router call through the circuit breaker and counts its outcome. 4xx responses and
+   * disconnected clients are not the router's fault, so they don't count towards opening it.
+   */
+  private <T> T guarded(String mode, Supplier<T> call) {
+    if (!breaker.tryAcquire()) {
+      meterRegistry.counter("prpo.router.calls", "mode", mode, "outcome", "short_circuited").increment();
+      throw new RouterUnavailableException("router is unavailable, try again later");
+    }
+
+    try {
+      T result = call.get();
+      breaker.onSuccess();
+      meterRegistry.counter("prpo.router.calls", "mode", mode, "outcome", "success").increment();
+      return result;
+    } catch (RuntimeException e) {
+      String outcome = outcomeOf(e);
+      if ("error".equals(outcome)) breaker.onFailure(); else breaker.onSuccess();
+      meterRegistry.counter("prpo.router.calls", "mode", mode, "outcome", outcome).increment();
+      throw e;
+    }
+  }
+
+  /**
+   * Router latency and token counts per provider and model. Failed calls have no provider or
+   * model, so they are tagged {@code unknown}.
+   */
+  private void recordCall(Timer.Sample sample, String mode, RouteResponse resp, RuntimeException error) {
+    String providerId = resp != null && resp.providerId() != null ? resp.providerId() : "unknown";
+    String modelId = resp != null && resp.modelId() != null ? resp.modelId() : "unknown";
+    String outcome = error == null ? "success"
+        : error instanceof RouterUnavailableException ? "short_circuited"
+        : outcomeOf(error);
+
+    sample.stop(meterRegistry.timer("prpo.router.latency",
+        "mode", mode, "provider", providerId, "model", modelId, "outcome", outcome));
+
+    if (resp != null && resp.usage() != null) {
+      if (resp.usage().promptTokens() != null) {
+        meterRegistry.summary("prpo.router.tokens", "provider", providerId, "model", modelId, "kind", "prompt")
+            .record(resp.usage().promptTokens());
+      }
+      if (resp.usage().completionTokens() != null) {
+        meterRegistry.summary("prpo.router.tokens", "provider", providerId, "model", modelId, "kind", "completion")
+            .record(resp.usage().completionTokens());
+      }
+    }
+  }
+
+  private static String outcomeOf(RuntimeException e) {
+    if (e instanceof RestClientResponseException r && r.getStatusCode().is4xxClientError()) return "rejected";
+    if (e instanceof WebClientResponseException r && r.getStatusCode().is4xxClientError()) return "rejected";
+    // Thrown by onDelta when our own client went away mid-stream.
+    if (e instanceof UncheckedIOException) return "cancelled";
+    return "error";
+  }
 
-    if (resp == null) {
-      throw new IllegalStateException("Router returned empty response");
+  /**
+   * Streaming variant of {@link #route}. The router answers with server-sent events:
+   * {@code delta} events carry partial assistant output and are passed to {@code onDelta}
+   * as they arrive, a final {@code done} event carries the same payload as the
+   * non-streaming endpoint. Blocks until the stream completes, or until {@code cancelled}
+   * completes, in which case the router call is cancelled and an {@link UncheckedIOException}
+   * is thrown as if {@code onDelta} had found the client gone.
+   */
+  public RouteResult routeStream(
+      String requestId,
+      String userId,
+      String conversationId,
+      String message,
+      List<ContextMessage> context,
+      String forceProviderId,
+      String forceModelId,
+      Consumer<String> onDelta,
+      Mono<Void> cancelled
+  ) {
+    String cacheKey = cacheKey(userId, forceProviderId, forceModelId, message, context);
+    RouteResult cached = cacheKey != null ? responseCache.get(cacheKey) : null;
+    if (cached != null) {
+      onDelta.accept(cached.assistantContent());
+      return cached.fromCache();
     }
 
+    RouteRequest body = new RouteRequest(
+        requestId,
+        userId,
+        conversationId,
+        message,
+        context,
+        new ModelOverrides(forceProviderId, forceModelId)
+    );
+
+    JsonBody json = encode(body);
+    AtomicReference<RouteResponse> done = new AtomicReference<>();
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    RouteResponse resp;
+    try {
+      guarded("stream", () -> reactiveClient
+          .post()
+          .uri("/internal/router/route/stream")
+          .contentType(MediaType.APPLICATION_JSON)
+          .accept(MediaType.TEXT_EVENT_STREAM)
+          .header(HttpHeaders.AUTHORIZATION, "Bearer " + internalServiceToken)
+          .headers(json::applyTo)
+          .bodyValue(json.bytes())
+          .retrieve()
+          .bodyToFlux(SSE_TYPE)
+          .takeUntil(event -> "done".equals(event.event()))
+          .takeUntilOther(cancelled.then(Mono.error(
+              () -> new UncheckedIOException(new IOException("client went away before the reply finished")))))
+          .doOnNext(event -> {
+            String data = event.data();
+            if (data == null) return;
+
+            if ("done".equals(event.event())) {
+              done.set(readJson(data, RouteResponse.class));
+            } else if ("error".equals(event.event())) {
+              RouteStreamError err = readJson(data, RouteStreamError.class);
+              throw new IllegalStateException("Router stream failed: " + err.message());
+            } else {
+              RouteStreamDelta delta = readJson(data, RouteStreamDelta.class);
+              if (delta.content() != null && !delta.content().isEmpty()) {
+                onDelta.accept(delta.content());
+              }
+            }
+          })
+          .blockLast());
+
+      resp = done.get();
+      if (resp == null) {
+        throw new IllegalStateException("Router stream ended without a result");
+      }
+    } catch (RuntimeException e) {
+      recordCall(sample, "stream", null, e);
+      throw e;
+    }
+    recordCall(sample, "stream", resp, null);
+
+    return remember(cacheKey, toResult(resp));
+  }
+
+  /** Request bodies carry the whole context window, so large ones are sent gzipped when enabled. */
+  private JsonBody encode(RouteRequest body) {
+    byte[] bytes;
+    try {
+      bytes = objectMapper.writeValueAsBytes(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize router request", e);
+    }
+    return InternalHttpClients.shouldCompress(httpSettings, bytes)
+        ? new JsonBody(InternalHttpClients.gzip(bytes), true)
+        : new JsonBody(bytes, false);
+  }
+
+  private record JsonBody(byte[] bytes, boolean gzipped) {
+    void applyTo(HttpHeaders headers) {
+      if (gzipped) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+  }
+
+  private String cacheKey(
+      String userId,
+      String forceProviderId,
+      String forceModelId,
+      String message,
+      List<ContextMessage> context
+  ) {
+    return responseCache.enabled()
+        ? responseCache.key(userId, forceProviderId, forceModelId, message, context)
+        : null;
+  }
+
+  private RouteResult remember(String cacheKey, RouteResult result) {
+    if (cacheKey != null) responseCache.put(cacheKey, result);
+    return result;
+  }
+
+  private <T> T readJson(String data, Class<T> type) {
+    try {
+      return objectMapper.readValue(data, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Router returned malformed stream event", e);
+    }
+  }
+
+  private RouteResult toResult(RouteResponse resp) {
     Integer promptTokens = resp.usage() != null ? resp.usage().promptTokens() : null;
     Integer completionTokens = resp.usage() != null ? resp.usage().completionTokens() : null;
     Integer totalTokens = resp.usage() != null ? resp.usage().totalTokens() : null;
@@ -107,7 +472,8 @@ public class RouterClient {
         completionTokens,
         totalTokens,
         resp.estimatedCost(),
-        resp.currency()
+        resp.currency(),
+        false
     );
   }
 }
@@ -0,0 +1,55 @@
+package com.prpo.entry.helpers;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "prpo.router")
+public record RouterProperties(
+    @DefaultValue Hedge hedge,
+    @DefaultValue Breaker circuitBreaker,
+    @DefaultValue Cache cache
+) {
+
+  /**
+   * A duplicate request is sent after {@code delay}, or after the observed latency percentile
+   * when {@code delay} is unset, as long as hedges stay under {@code maxRatio} of all calls.
+   */
+  public record Hedge(
+      @DefaultValue("false") boolean enabled,
+      Duration delay,
+      @DefaultValue("0.95") double percentile,
+      @DefaultValue("2s") Duration minDelay,
+      @DefaultValue("1024") int window,
+      @DefaultValue("0.1") double maxRatio
+  ) {}
+
+  /**
+   * Opens when at least {@code failureRateThreshold} of the last {@code window} calls (and at
+   * least {@code minimumCalls}) failed; after {@code openDuration} lets {@code halfOpenCalls}
+   * trial calls through and closes again only if they all succeed.
+   */
+  public record Breaker(
+      @DefaultValue("true") boolean enabled,
+      @DefaultValue("50") int window,
+      @DefaultValue("20") int minimumCalls,
+      @DefaultValue("0.5") double failureRateThreshold,
+      @DefaultValue("30s") Duration openDuration,
+      @DefaultValue("3") int halfOpenCalls
+  ) {}
+
+  /**
+   * Exact-match answer cache. {@code scope=user} keys entries by user, {@code scope=global}
+   * shares them; bounded by {@code maxEntries}, total {@code maxChars} and {@code ttl}.
+   */
+  public record Cache(
+      @DefaultValue("false") boolean enabled,
+      @DefaultValue("user") Scope scope,
+      @DefaultValue("10000") int maxEntries,
+      @DefaultValue("20000000") long maxChars,
+      @DefaultValue("1h") Duration ttl
+  ) {
+
+    public enum Scope { USER, GLOBAL }
+  }
+}
@@ -0,0 +1,147 @@
+package com.prpo.entry.helpers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in exact-match cache of router answers, keyed by a SHA-256 of the model overrides, the
+ * message and the full context. With {@code scope=user} the user id is part of the key, so
+ * answers are never shared between users; {@code scope=global} shares them. Bounded by entry
+ * count, total cached characters and TTL.
+ */
+@Component
+public class RouterResponseCache {
+
+  private record KeyMaterial(
+      String userId,
+      String forceProviderId,
+      String forceModelId,
+      String message,
+      List<RouterClient.ContextMessage> context
+  ) {}
+
+  private record Entry(RouterClient.RouteResult result, long expiresAtNanos, int weight) {}
+
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final boolean perUser;
+  private final int maxEntries;
+  private final long maxChars;
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long weight;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  @Autowired
+  public RouterResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, RouterProperties routerProperties) {
+    this(objectMapper, meterRegistry, routerProperties.cache(), System::nanoTime);
+  }
+
+  RouterResponseCache(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      RouterProperties.Cache cfg,
+      LongSupplier nanoTime
+  ) {
+    this.objectMapper = objectMapper;
+    this.enabled = cfg.enabled();
+    this.perUser = cfg.scope() == RouterProperties.Cache.Scope.USER;
+    this.maxEntries = cfg.maxEntries();
+    this.maxChars = cfg.maxChars();
+    this.ttlNanos = cfg.ttl().toNanos();
+    this.nanoTime = nanoTime;
+
+    this.hits = meterRegistry.counter("prpo.router.cache.requests", "result", "hit");
+    this.misses = meterRegistry.counter("prpo.router.cache.requests", "result", "miss");
+    meterRegistry.gauge("prpo.router.cache.size", this, c -> c.size());
+  }
+
+  public boolean enabled() {
+    return enabled;
+  }
+
+  public String key(
+      String userId,
+      String forceProviderId,
+      String forceModelId,
+      String message,
+      List<RouterClient.ContextMessage> context
+  ) {
+    KeyMaterial material = new KeyMaterial(perUser ? userId : null, forceProviderId, forceModelId, message, context);
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(material)));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Failed to build router cache key", e);
+    }
+  }
+
+  public RouterClient.RouteResult get(String key) {
+    lock.lock();
+    try {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.expiresAtNanos() - nanoTime.getAsLong() > 0) {
+        hits.increment();
+        return entry.result();
+      }
+      if (entry != null) remove(key);
+      misses.increment();
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void put(String key, RouterClient.RouteResult result) {
+    if (result.assistantContent() == null) return;
+    int entryWeight = result.assistantContent().length();
+    if (entryWeight > maxChars) return;
+
+    lock.lock();
+    try {
+      remove(key);
+      entries.put(key, new Entry(result, nanoTime.getAsLong() + ttlNanos, entryWeight));
+      weight += entryWeight;
+
+      var it = entries.entrySet().iterator();
+      while ((entries.size() > maxEntries || weight > maxChars) && it.hasNext()) {
+        weight -= it.next().getValue().weight();
+        it.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void remove(String key) {
+    Entry old = entries.remove(key);
+    if (old != null) weight -= old.weight();
+  }
+
+  private int size() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.prpo.entry.helpers;
+
+/** Thrown without calling the router while its circuit breaker is open. */
+public class RouterUnavailableException extends UpstreamException {
+
+  public RouterUnavailableException(String message) {
+    super(message, null);
+  }
+}
@@ -0,0 +1,17 @@
+package com.prpo.entry.helpers;
+
+/**
+ * Cheap token estimate (~4 characters per token) used for context budgeting. It only has to
+ * be stable and roughly proportional; exact counts come back from the router per request.
+ */
+public final class TokenEstimator {
+
+  private static final int CHARS_PER_TOKEN = 4;
+
+  private TokenEstimator() {}
+
+  public static int estimate(String content) {
+    if (content == null || content.isEmpty()) return 1;
+    return Math.max(1, (content.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN);
+  }
+}
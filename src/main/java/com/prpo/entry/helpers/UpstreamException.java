@@ -0,0 +1,8 @@
+package com.prpo.entry.helpers;
+
+public class UpstreamException extends RuntimeException {
+
+  public UpstreamException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -1,12 +1,17 @@
 package com.prpo.entry.helpers;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
@@ -18,6 +23,7 @@ public class UsageClient {
       Boolean deduplicated
   ) {}
 
+  /** Event pages are only read by the nightly rollup reconciliation; /usage is served from local rollups. */
   public record UsageEventSummaryItem(
       String eventId,
       String userId,
@@ -58,21 +64,27 @@ public class UsageClient {
   ) {}
 
   private final WebClient client;
+  private final MeterRegistry meterRegistry;
   private final String internalServiceToken;
 
   public UsageClient(
       WebClient.Builder webClientBuilder,
+      InternalHttpClients httpClients,
+      MeterRegistry meterRegistry,
       @Value("${USAGE_BASE_URL}") String usageBaseUrl,
       @Value("${INTERNAL_SERVICE_TOKEN}") String internalServiceToken
   ) {
-    this.client = webClientBuilder
-        .baseUrl(usageBaseUrl)
-        .build();
+    this.client = httpClients.webClient(
+        webClientBuilder,
+        httpClients.httpClient("usage", usageBaseUrl, httpClients.usage()),
+        usageBaseUrl
+    );
+    this.meterRegistry = meterRegistry;
     this.internalServiceToken = internalServiceToken;
   }
 
-  public RecordEventResult recordEvent(UsageEvent event) {
-    RecordEventResponse resp = client
+  public Mono<RecordEventResult> recordEventAsync(UsageEvent event) {
+    return client
         .post()
         .uri("/internal/usage/events")
         .contentType(MediaType.APPLICATION_JSON)
@@ -81,45 +93,101 @@ public class UsageClient {
         .bodyValue(event)
         .retrieve()
         .bodyToMono(RecordEventResponse.class)
-        .block();
-
-    if (resp == null) {
-      throw new IllegalStateException("Usage returned empty response");
-    }
-
-    boolean accepted = resp.accepted() != null ? resp.accepted() : true;
-
-    return new RecordEventResult(
-        accepted,
-        resp.eventId(),
-        resp.deduplicated()
-    );
+        .switchIfEmpty(Mono.error(() -> new IllegalStateException("Usage returned empty response")))
+        .map(resp -> new RecordEventResult(
+            resp.accepted() != null ? resp.accepted() : true,
+            resp.eventId(),
+            resp.deduplicated()
+        ))
+        .transform(m -> timed("record", m));
   }
 
-  public ListEventsResponse listEvents(OffsetDateTime from, OffsetDateTime to, Integer limit) {
+  public Mono<ListEventsResponse> listEventsAsync(
+      String userId,
+      OffsetDateTime from,
+      OffsetDateTime to,
+      Integer limit,
+      String cursor
+  ) {
     Integer safeLimit = (limit == null) ? null : Math.min(limit, 500);
 
-    Mono<ListEventsResponse> mono = client
+    return client
         .get()
         .uri(uriBuilder -> {
           var b = uriBuilder.path("/internal/usage/events");
+          if (userId != null) b.queryParam("userId", userId);
           if (from != null) b.queryParam("from", from);
           if (to != null) b.queryParam("to", to);
           if (safeLimit != null) b.queryParam("limit", safeLimit);
+          if (cursor != null) b.queryParam("cursor", cursor);
           return b.build();
         })
         .accept(MediaType.APPLICATION_JSON)
         .header(HttpHeaders.AUTHORIZATION, "Bearer " + internalServiceToken)
         .retrieve()
-        .bodyToMono(ListEventsResponse.class);
+        .bodyToMono(ListEventsResponse.class)
+        .defaultIfEmpty(new ListEventsResponse(List.of(), null, null))
+        .map(resp -> resp.items() != null
+            ? resp
+            : new ListEventsResponse(List.of(), resp.total(), resp.nextCursor()))
+        .transform(m -> timed("list", m));
+  }
+
+  /** Times each call as {@code prpo.usage.client.latency{operation, outcome}}. */
+  private <T> Mono<T> timed(String operation, Mono<T> call) {
+    return Mono.defer(() -> {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      return call
+          .doOnSuccess(v -> stop(sample, operation, "success"))
+          .doOnError(e -> stop(sample, operation, "error"))
+          .doOnCancel(() -> stop(sample, operation, "cancelled"));
+    });
+  }
 
-    ListEventsResponse resp = mono.block();
-    if (resp == null) {
-      return new ListEventsResponse(List.of(), null, null);
+  private void stop(Timer.Sample sample, String operation, String outcome) {
+    sample.stop(meterRegistry.timer("prpo.usage.client.latency", "operation", operation, "outcome", outcome));
+  }
+
+  /**
+   * All events of one user in {@code [from, to]}, following {@code nextCursor}. When both
+   * bounds are set the range is split into {@code slice}-long pieces that are fetched with at
+   * most {@code concurrency} requests in flight. Items are emitted as pages arrive.
+   */
+  public Flux<UsageEventSummaryItem> streamEvents(
+      String userId,
+      OffsetDateTime from,
+      OffsetDateTime to,
+      int pageSize,
+      Duration slice,
+      int concurrency
+  ) {
+    if (from == null || to == null || !from.plus(slice).isBefore(to)) {
+      return pages(userId, from, to, pageSize);
     }
-    if (resp.items() == null) {
-      return new ListEventsResponse(List.of(), resp.total(), resp.nextCursor());
+
+    List<OffsetDateTime[]> ranges = new ArrayList<>();
+    OffsetDateTime start = from;
+    while (!start.isAfter(to)) {
+      OffsetDateTime next = start.plus(slice);
+      OffsetDateTime end = next.isAfter(to) ? to : next.minusNanos(1);
+      ranges.add(new OffsetDateTime[] {start, end});
+      start = next;
     }
-    return resp;
+
+    return Flux.fromIterable(ranges)
+        .flatMap(r -> pages(userId, r[0], r[1], pageSize), Math.max(1, concurrency));
+  }
+
+  private Flux<UsageEventSummaryItem> pages(
+      String userId,
+      OffsetDateTime from,
+      OffsetDateTime to,
+      int pageSize
+  ) {
+    return listEventsAsync(userId, from, to, pageSize, null)
+        .expand(page -> page.nextCursor() != null && !page.items().isEmpty()
+            ? listEventsAsync(userId, from, to, pageSize, page.nextCursor())
+            : Mono.empty())
+        .flatMapIterable(ListEventsResponse::items);
   }
 }
@@ -0,0 +1,25 @@
+package com.prpo.entry.logic;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Chats with at least {@code softThreshold} messages (and every chat in a delete-all) are only
+ * marked deleted and purged in the background by {@link ChatPurger}; smaller chats are removed
+ * with one cascading statement. {@code softThreshold = 0} deletes single chats synchronously.
+ */
+@ConfigurationProperties(prefix = "prpo.chat.delete")
+public record ChatDeletionProperties(
+    @DefaultValue("0") int softThreshold,
+    @DefaultValue Purge purge
+) {
+
+  public record Purge(
+      @DefaultValue("1000") int batchSize,
+      @DefaultValue("20") int chatsPerRun
+  ) {}
+
+  public boolean softDeleteEnabled() {
+    return softThreshold > 0;
+  }
+}
@@ -0,0 +1,71 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Physically removes soft-deleted chats. Messages go in batches of {@code purge.batch-size},
+ * each its own short transaction, and the chat row last; {@code ON DELETE CASCADE} takes the
+ * conversation summary and anything written after the last batch. Every step is idempotent, so
+ * instances racing on the same chat only waste a statement.
+ */
+@Component
+public class ChatPurger {
+
+  private static final Logger log = LoggerFactory.getLogger(ChatPurger.class);
+
+  private final ChatRepository chatRepository;
+  private final MessageRepository messageRepository;
+  private final ChatDeletionProperties properties;
+
+  private final Counter purgedChats;
+  private final Counter purgedMessages;
+
+  public ChatPurger(
+      ChatRepository chatRepository,
+      MessageRepository messageRepository,
+      ChatDeletionProperties properties,
+      MeterRegistry meterRegistry
+  ) {
+    this.chatRepository = chatRepository;
+    this.messageRepository = messageRepository;
+    this.properties = properties;
+    this.purgedChats = meterRegistry.counter("prpo.chat.purge.chats");
+    this.purgedMessages = meterRegistry.counter("prpo.chat.purge.messages");
+  }
+
+  @Scheduled(
+      fixedDelayString = "${prpo.chat.delete.purge.interval-ms:5000}",
+      initialDelayString = "${prpo.chat.delete.purge.interval-ms:5000}"
+  )
+  public void purgeDeleted() {
+    List<String> chatIds = chatRepository.findDeletedIds(properties.purge().chatsPerRun());
+    for (String chatId : chatIds) {
+      try {
+        purge(chatId);
+      } catch (RuntimeException e) {
+        log.warn("purging chat {} failed, will retry", chatId, e);
+      }
+    }
+  }
+
+  private void purge(String chatId) {
+    int batchSize = properties.purge().batchSize();
+    int deleted;
+    do {
+      deleted = messageRepository.deleteBatch(chatId, batchSize);
+      purgedMessages.increment(deleted);
+    } while (deleted >= batchSize);
+
+    if (chatRepository.purge(chatId) > 0) {
+      purgedChats.increment();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.model.ChatDetail;
+import com.prpo.entry.model.ListChatsResponse;
+import com.prpo.entry.model.ListMessagesResponse;
+import java.util.Arrays;
+import org.springframework.stereotype.Service;
+
+/**
+ * Read side of {@link ChatService} behind {@link SingleFlight}: bursts of identical reads from
+ * re-renders and multiple tabs share one transaction and query. Args start with the user id so
+ * {@link ChatService} writes can {@link SingleFlight#forget} that user's in-flight reads.
+ */
+@Service
+public class ChatReads {
+
+  private final ChatService chatService;
+  private final SingleFlight singleFlight;
+
+  public ChatReads(ChatService chatService, SingleFlight singleFlight) {
+    this.chatService = chatService;
+    this.singleFlight = singleFlight;
+  }
+
+  public ListChatsResponse listChats(String userId, Integer limit, String cursor) {
+    return singleFlight.execute("listChats", Arrays.asList(userId, limit, cursor),
+        () -> chatService.listChats(userId, limit, cursor));
+  }
+
+  public ChatDetail getChat(String userId, String chatId) {
+    return singleFlight.execute("getChat", Arrays.asList(userId, chatId),
+        () -> chatService.getChat(userId, chatId));
+  }
+
+  public ListMessagesResponse listMessages(
+      String userId,
+      String chatId,
+      Integer limit,
+      String before,
+      String after
+  ) {
+    return singleFlight.execute("listMessages", Arrays.asList(userId, chatId, limit, before, after),
+        () -> chatService.listMessages(userId, chatId, limit, before, after));
+  }
+}
@@ -3,45 +3,95 @@ package com.prpo.entry.logic;
 import com.prpo.entry.domain.ChatEntity;
 import com.prpo.entry.domain.MessageEntity;
 import com.prpo.entry.helpers.RouterClient;
-import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.helpers.RouterUnavailableException;
+import com.prpo.entry.helpers.UpstreamException;
 import com.prpo.entry.model.ChatDetail;
 import com.prpo.entry.model.ChatSummary;
 import com.prpo.entry.model.CreateChatRequest;
 import com.prpo.entry.model.CreateChatResponse;
+import com.prpo.entry.model.DeleteChatsResponse;
 import com.prpo.entry.model.ListChatsResponse;
+import com.prpo.entry.model.ListMessagesResponse;
 import com.prpo.entry.model.Message;
 import com.prpo.entry.model.MessageRole;
 import com.prpo.entry.model.SendMessageRequest;
 import com.prpo.entry.model.SendMessageResponse;
 import com.prpo.entry.model.SendMessageResponseRouting;
 import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.ChatSummaryView;
 import com.prpo.entry.repository.MessageRepository;
+import com.prpo.entry.repository.MessageView;
+import com.prpo.entry.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
 
 @Service
 public class ChatService {
 
+  private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
   private final ChatRepository chatRepository;
   private final MessageRepository messageRepository;
+  private final UserRepository userRepository;
+  private final ChatTurnStore turnStore;
   private final RouterClient routerClient;
-  private final UsageClient usageClient;
+  private final TitleGenerator titleGenerator;
+  private final ConversationSummarizer summarizer;
+  private final ConversationCache conversationCache;
+  private final IdempotentRequests idempotentRequests;
+  private final SingleFlight singleFlight;
+  private final ChatDeletionProperties deletionProperties;
+  private final MeterRegistry meterRegistry;
 
   public ChatService(
       ChatRepository chatRepository,
       MessageRepository messageRepository,
+      UserRepository userRepository,
+      ChatTurnStore turnStore,
       RouterClient routerClient,
-      UsageClient usageClient
+      TitleGenerator titleGenerator,
+      ConversationSummarizer summarizer,
+      ConversationCache conversationCache,
+      IdempotentRequests idempotentRequests,
+      SingleFlight singleFlight,
+      ChatDeletionProperties deletionProperties,
+      MeterRegistry meterRegistry
   ) {
     this.chatRepository = chatRepository;
     this.messageRepository = messageRepository;
+    this.userRepository = userRepository;
+    this.turnStore = turnStore;
     this.routerClient = routerClient;
-    this.usageClient = usageClient;
+    this.titleGenerator = titleGenerator;
+    this.summarizer = summarizer;
+    this.conversationCache = conversationCache;
+    this.idempotentRequests = idempotentRequests;
+    this.singleFlight = singleFlight;
+    this.deletionProperties = deletionProperties;
+    this.meterRegistry = meterRegistry;
   }
 
   @Transactional
@@ -51,6 +101,8 @@ public class ChatService {
     chat.setTitle(req != null ? req.getTitle() : null);
 
     ChatEntity saved = chatRepository.save(chat);
+    userRepository.adjustChatCount(userId, 1);
+    forgetInFlightReadsAfterCommit(userId);
 
     return new CreateChatResponse()
         .id(saved.getId())
@@ -62,9 +114,10 @@ public class ChatService {
   public ChatDetail getChat(String userId, String chatId) {
     ChatEntity chat = requireChat(userId, chatId);
 
-    List<MessageEntity> entities = messageRepository.findByChatIdOrderByCreatedAtAsc(chat.getId());
-    List<Message> msgs = new ArrayList<>(entities.size());
-    for (MessageEntity e : entities) msgs.add(toApiMessage(e));
+    List<MessageView> views = meterRegistry.timer("prpo.chat.history.load")
+        .record(() -> messageRepository.findHistory(chat.getId()));
+    meterRegistry.summary("prpo.chat.history.messages").record(views.size());
+    List<Message> msgs = toApiMessages(views);
 
     return new ChatDetail()
         .id(chat.getId())
@@ -75,8 +128,36 @@ public class ChatService {
   @Transactional
   public void deleteChat(String userId, String chatId) {
     ChatEntity chat = requireChat(userId, chatId);
-    messageRepository.deleteByChatId(chat.getId());
-    chatRepository.delete(chat);
+
+    boolean soft = deletionProperties.softDeleteEnabled()
+        && chat.getMessageCount() != null
+        && chat.getMessageCount() >= deletionProperties.softThreshold();
+    int rows = soft
+        ? chatRepository.markDeleted(chat.getId(), userId)
+        : chatRepository.deleteOwned(chat.getId(), userId);
+    if (rows == 0) throw new IllegalArgumentException("chat not found");
+
+    userRepository.adjustChatCount(userId, -1);
+    conversationCache.invalidate(chat.getId());
+    forgetInFlightReadsAfterCommit(userId);
+  }
+
+  /**
+   * Marks every chat of the user deleted in one statement and returns how many were removed;
+   * {@link ChatPurger} removes their messages in batches, however many there are.
+   */
+  @Transactional
+  public DeleteChatsResponse deleteAllChats(String userId) {
+    List<String> chatIds = chatRepository.findLiveIds(userId);
+    if (chatIds.isEmpty()) return new DeleteChatsResponse().deleted(0);
+
+    int rows = chatRepository.markAllDeleted(userId);
+
+    userRepository.adjustChatCount(userId, -rows);
+    for (String chatId : chatIds) conversationCache.invalidate(chatId);
+    forgetInFlightReadsAfterCommit(userId);
+
+    return new DeleteChatsResponse().deleted(rows);
   }
 
   @Transactional
@@ -84,19 +165,19 @@ public class ChatService {
     int lim = (limit == null || limit < 1) ? 50 : Math.min(limit, 200);
     int limitPlusOne = lim + 1;
 
-    List<ChatEntity> rows;
+    List<ChatSummaryView> rows;
     if (cursor == null || cursor.isBlank()) {
-      rows = chatRepository.pageFirst(userId, limitPlusOne);
+      rows = chatRepository.pageFirst(userId, PageRequest.of(0, limitPlusOne));
     } else {
       CursorParts parts = decodeCursor(cursor);
-      rows = chatRepository.pageAfter(userId, parts.updatedAt, parts.id, limitPlusOne);
+      rows = chatRepository.pageAfter(userId, parts.timestamp, parts.id, PageRequest.of(0, limitPlusOne));
     }
 
     boolean hasMore = rows.size() > lim;
     if (hasMore) rows = rows.subList(0, lim);
 
     List<ChatSummary> items = new ArrayList<>(rows.size());
-    for (ChatEntity c : rows) {
+    for (ChatSummaryView c : rows) {
       items.add(new ChatSummary()
           .id(c.getId())
           .title(Optional.ofNullable(c.getTitle()).orElse("New chat"))
@@ -104,118 +185,234 @@ public class ChatService {
           .updatedAt(c.getUpdatedAt())
           .lastProviderId(c.getLastProviderId())
           .lastModelId(c.getLastModelId())
+          .messageCount(c.getMessageCount())
+          .lastMessagePreview(c.getLastMessagePreview())
       );
     }
 
     String nextCursor = null;
     if (hasMore && !rows.isEmpty()) {
-      ChatEntity last = rows.get(rows.size() - 1);
+      ChatSummaryView last = rows.get(rows.size() - 1);
       nextCursor = encodeCursor(last.getUpdatedAt(), last.getId());
     }
 
+    Integer total = (cursor == null || cursor.isBlank()) ? userRepository.findChatCount(userId) : null;
+
     return new ListChatsResponse()
         .items(items)
-        .total(null)
+        .total(total)
         .nextCursor(nextCursor);
   }
 
-  private record CursorParts(OffsetDateTime updatedAt, String id) {}
+  @Transactional
+  public ListMessagesResponse listMessages(
+      String userId,
+      String chatId,
+      Integer limit,
+      String before,
+      String after
+  ) {
+    boolean hasBefore = before != null && !before.isBlank();
+    boolean hasAfter = after != null && !after.isBlank();
+    if (hasBefore && hasAfter) {
+      throw new IllegalArgumentException("before and after cannot be combined");
+    }
+
+    ChatEntity chat = requireChat(userId, chatId);
+
+    int lim = (limit == null || limit < 1) ? 50 : Math.min(limit, 200);
+    int limitPlusOne = lim + 1;
+
+    PageRequest page = PageRequest.of(0, limitPlusOne);
+    List<MessageView> rows;
+    if (hasAfter) {
+      CursorParts parts = decodeMessageCursor(after);
+      rows = messageRepository.pageAfter(chat.getId(), parts.timestamp, parts.id, page);
+    } else if (hasBefore) {
+      CursorParts parts = decodeMessageCursor(before);
+      rows = messageRepository.pageBefore(chat.getId(), parts.timestamp, parts.id, page);
+    } else {
+      rows = messageRepository.pageLatest(chat.getId(), page);
+    }
+
+    boolean hasMore = rows.size() > lim;
+    if (hasMore) rows = rows.subList(0, lim);
 
-  private String encodeCursor(OffsetDateTime updatedAt, String id) {
+    List<Message> items = toApiMessages(rows);
+    if (!hasAfter) Collections.reverse(items);
+
+    String olderCursor = null;
+    String newerCursor = null;
+    if (!rows.isEmpty()) {
+      MessageView oldest = hasAfter ? rows.get(0) : rows.get(rows.size() - 1);
+      MessageView newest = hasAfter ? rows.get(rows.size() - 1) : rows.get(0);
+
+      if (hasAfter || hasMore) olderCursor = encodeMessageCursor(oldest.getCreatedAt(), oldest.getId());
+      if (hasBefore || (hasAfter && hasMore)) newerCursor = encodeMessageCursor(newest.getCreatedAt(), newest.getId());
+    }
+
+    return new ListMessagesResponse()
+        .items(items)
+        .olderCursor(olderCursor)
+        .newerCursor(newerCursor);
+  }
+
+  record CursorParts(OffsetDateTime timestamp, String id) {}
+
+  static String encodeMessageCursor(OffsetDateTime createdAt, String id) {
+    long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt.toInstant());
+    return micros + ":" + id;
+  }
+
+  static CursorParts decodeMessageCursor(String cursor) {
+    return decodeCursor(cursor, micros -> Instant.EPOCH.plus(micros, ChronoUnit.MICROS));
+  }
+
+  static String encodeCursor(OffsetDateTime updatedAt, String id) {
     long ms = updatedAt.toInstant().toEpochMilli();
     return ms + ":" + id;
   }
 
-  private CursorParts decodeCursor(String cursor) {
+  static CursorParts decodeCursor(String cursor) {
+    return decodeCursor(cursor, Instant::ofEpochMilli);
+  }
+
+  /** Parses {@code <epoch>:<id>}; anything else is rejected as an invalid cursor. */
+  private static CursorParts decodeCursor(String cursor, LongFunction<Instant> toInstant) {
     int idx = cursor.lastIndexOf(':');
     if (idx <= 0 || idx == cursor.length() - 1) {
       throw new IllegalArgumentException("invalid cursor");
     }
 
-    long ms = Long.parseLong(cursor.substring(0, idx));
+    long epoch;
+    try {
+      epoch = Long.parseLong(cursor.substring(0, idx));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid cursor");
+    }
     String id = cursor.substring(idx + 1);
 
-    return new CursorParts(
-        OffsetDateTime.ofInstant(java.time.Instant.ofEpochMilli(ms), java.time.ZoneOffset.UTC),
-        id
-    );
+    return new CursorParts(OffsetDateTime.ofInstant(toInstant.apply(epoch), ZoneOffset.UTC), id);
   }
 
-  @Transactional
   public SendMessageResponse sendMessage(String userId, String chatId, SendMessageRequest req) {
-    ChatEntity chat = requireChat(userId, chatId);
+    return runTurn(userId, chatId, req, null, null);
+  }
+
+  /**
+   * {@link #sendMessage} honouring an {@code Idempotency-Key}: retries with the same key and
+   * payload wait for or replay the first result instead of calling the router again.
+   */
+  public SendMessageResponse sendMessage(
+      String userId,
+      String chatId,
+      SendMessageRequest req,
+      String idempotencyKey
+  ) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return sendMessage(userId, chatId, req);
+    }
+    if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+      throw new IllegalArgumentException("Idempotency-Key is too long");
+    }
+
+    return idempotentRequests.execute(
+        userId,
+        idempotencyKey,
+        fingerprint(chatId, req),
+        () -> runTurn(userId, chatId, req, null, null)
+    );
+  }
+
+  /**
+   * Streaming variant of {@link #sendMessage}. Once {@code cancelled} completes the router call is
+   * dropped; the user message stays, since the client may already have shown it as sent.
+   */
+  public SendMessageResponse sendMessageStream(
+      String userId,
+      String chatId,
+      SendMessageRequest req,
+      Consumer<String> onDelta,
+      Mono<Void> cancelled
+  ) {
+    return runTurn(userId, chatId, req, onDelta, cancelled);
+  }
+
+  /** Times the whole turn as {@code prpo.chat.turn{mode, provider, model, outcome}}. */
+  private SendMessageResponse runTurn(
+      String userId,
+      String chatId,
+      SendMessageRequest req,
+      Consumer<String> onDelta,
+      Mono<Void> cancelled
+  ) {
+    String mode = onDelta == null ? "sync" : "stream";
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      SendMessageResponse resp = turn(userId, chatId, req, onDelta, cancelled);
+      sample.stop(meterRegistry.timer("prpo.chat.turn", "mode", mode,
+          "provider", String.valueOf(resp.getRouting().getProviderId()),
+          "model", String.valueOf(resp.getRouting().getModelId()),
+          "outcome", "success"));
+      return resp;
+    } catch (RuntimeException e) {
+      String outcome = e instanceof IllegalArgumentException ? "rejected"
+          : e instanceof UncheckedIOException ? "cancelled"
+          : "error";
+      sample.stop(meterRegistry.timer("prpo.chat.turn", "mode", mode,
+          "provider", "unknown", "model", "unknown", "outcome", outcome));
+      throw e;
+    } finally {
+      // The turn's messages (or their rollback) are committed by now.
+      forgetInFlightReadsAfterCommit(userId);
+    }
+  }
 
+  private SendMessageResponse turn(
+      String userId,
+      String chatId,
+      SendMessageRequest req,
+      Consumer<String> onDelta,
+      Mono<Void> cancelled
+  ) {
     String content = req.getContent();
     if (content == null || content.isBlank()) {
       throw new IllegalArgumentException("content is required");
     }
 
-    MessageEntity userMsg = new MessageEntity();
-    userMsg.setChat(chat);
-    userMsg.setRole(MessageEntity.Role.user);
-    userMsg.setContent(content);
-    userMsg = messageRepository.save(userMsg);
+    String forceProviderId = req.getModelOverrides() != null ? req.getModelOverrides().getForceProviderId() : null;
+    String forceModelId = req.getModelOverrides() != null ? req.getModelOverrides().getForceModelId() : null;
 
-    List<MessageEntity> historyEntities = messageRepository.findByChatIdOrderByCreatedAtAsc(chat.getId());
-    List<RouterClient.ContextMessage> context = new ArrayList<>();
-    for (MessageEntity m : historyEntities) {
-      context.add(new RouterClient.ContextMessage(m.getRole().name(), m.getContent()));
-    }
+    routerClient.ensureAvailable();
+
+    ChatTurnStore.TurnStart turn = turnStore.beginTurn(userId, chatId, content, forceModelId);
+    MessageEntity userMsg = turn.userMessage();
+    forgetInFlightReadsAfterCommit(userId);
 
     String requestId = "req_" + UUID.randomUUID();
 
-    RouterClient.RouteResult routed = routerClient.route(
-        requestId,
-        userId,
-        chat.getId(),
-        content,
-        context,
-        req.getModelOverrides() != null ? req.getModelOverrides().getForceProviderId() : null,
-        req.getModelOverrides() != null ? req.getModelOverrides().getForceModelId() : null
-    );
+    RouterClient.RouteResult routed;
+    try {
+      routed = onDelta == null
+          ? routerClient.route(requestId, userId, turn.chatId(), content, turn.context(), forceProviderId, forceModelId)
+          : routerClient.routeStream(requestId, userId, turn.chatId(), content, turn.context(), forceProviderId, forceModelId, onDelta, cancelled);
+    } catch (UncheckedIOException e) {
+      // The stream client went away; its message was accepted and stays without a reply.
+      throw e;
+    } catch (RouterUnavailableException e) {
+      turnStore.abortTurn(turn.chatId(), userMsg.getId());
+      throw e;
+    } catch (RuntimeException e) {
+      turnStore.abortTurn(turn.chatId(), userMsg.getId());
+      throw new UpstreamException("router call failed", e);
+    }
 
-    MessageEntity assistantMsg = new MessageEntity();
-    assistantMsg.setChat(chat);
-    assistantMsg.setRole(MessageEntity.Role.assistant);
-    assistantMsg.setContent(routed.assistantContent());
-    assistantMsg.setProviderId(routed.providerId());
-    assistantMsg.setModelId(routed.modelId());
-    assistantMsg.setRequestId(requestId);
-    assistantMsg = messageRepository.save(assistantMsg);
-
-    recordUsageEvent(userId, chat.getId(), requestId, routed);
-
-    if (isDefaultTitle(chat)) {
-      String titlePrompt =
-          "Generate a short chat title (max 6 words). " +
-          "Output ONLY the title. No quotes. No trailing punctuation.";
-
-      List<RouterClient.ContextMessage> titleContext = new ArrayList<>();
-      titleContext.add(new RouterClient.ContextMessage("user", content));
-      titleContext.add(new RouterClient.ContextMessage("assistant", routed.assistantContent()));
-
-      String titleRequestId = "req_" + UUID.randomUUID();
-
-      RouterClient.RouteResult titleRouted = routerClient.route(
-          titleRequestId,
-          userId,
-          chat.getId(),
-          titlePrompt,
-          titleContext,
-          null,
-          null
-      );
+    MessageEntity assistantMsg = turnStore.completeTurn(userId, turn.chatId(), requestId, routed);
 
-      String newTitle = sanitizeTitle(titleRouted.assistantContent());
-      if (newTitle != null) {
-        chat.setTitle(newTitle);
-      }
+    if (turn.defaultTitle()) {
+      titleGenerator.submit(userId, turn.chatId(), content, routed.assistantContent());
     }
-
-    chat.setLastProviderId(routed.providerId());
-    chat.setLastModelId(routed.modelId());
-    chat.setUpdatedAt(OffsetDateTime.now());
-    chatRepository.save(chat);
+    summarizer.submit(userId, turn.chatId());
 
     SendMessageResponseRouting routing = new SendMessageResponseRouting()
         .requestId(requestId)
@@ -229,35 +426,27 @@ public class ChatService {
         .currency(routed.currency());
 
     return new SendMessageResponse()
-        .conversationId(chat.getId())
+        .conversationId(turn.chatId())
         .userMessage(toApiMessage(userMsg))
         .assistantMessage(toApiMessage(assistantMsg))
         .routing(routing);
   }
 
-  private void recordUsageEvent(
-      String userId,
-      String conversationId,
-      String requestId,
-      RouterClient.RouteResult routed
-  ) {
-    UsageClient.UsageEvent event = new UsageClient.UsageEvent(
-        "evt_" + UUID.randomUUID(),
-        requestId,
-        userId,
-        conversationId,
-        routed.providerId(),
-        routed.modelId(),
-        routed.promptTokens(),
-        routed.completionTokens(),
-        routed.totalTokens(),
-        routed.cost(),
-        routed.currency(),
-        routed.latencyMs(),
-        OffsetDateTime.now()
-    );
-
-    usageClient.recordEvent(event);
+  /**
+   * Stops later {@link ChatReads} callers from joining a read that started before this write, so
+   * a read issued after the write includes it. Every read there is keyed by user id first.
+   */
+  private void forgetInFlightReadsAfterCommit(String userId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      singleFlight.forget(userId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        singleFlight.forget(userId);
+      }
+    });
   }
 
   private ChatEntity requireChat(String userId, String chatId) {
@@ -265,16 +454,10 @@ public class ChatService {
         .orElseThrow(() -> new IllegalArgumentException("chat not found"));
   }
 
-  private Message toApiMessage(MessageEntity e) {
-    MessageRole role = switch (e.getRole()) {
-      case user -> MessageRole.USER;
-      case assistant -> MessageRole.ASSISTANT;
-      case system -> MessageRole.SYSTEM;
-    };
-
+  static Message toApiMessage(MessageEntity e) {
     return new Message()
         .id(e.getId())
-        .role(role)
+        .role(toApiRole(e.getRole()))
         .content(e.getContent())
         .createdAt(e.getCreatedAt())
         .providerId(e.getProviderId())
@@ -282,29 +465,50 @@ public class ChatService {
         .requestId(e.getRequestId());
   }
 
-  private boolean isDefaultTitle(ChatEntity chat) {
+  /** Maps listed rows, swapping the previews of compressed rows for their bodies. */
+  private List<Message> toApiMessages(List<MessageView> views) {
+    Map<String, String> bodies = messageRepository.inflateCompressed(views);
+    List<Message> msgs = new ArrayList<>(views.size());
+    for (MessageView v : views) {
+      msgs.add(new Message()
+          .id(v.getId())
+          .role(toApiRole(v.getRole()))
+          .content(bodies.getOrDefault(v.getId(), v.getContent()))
+          .createdAt(v.getCreatedAt())
+          .providerId(v.getProviderId())
+          .modelId(v.getModelId())
+          .requestId(v.getRequestId()));
+    }
+    return msgs;
+  }
+
+  private static MessageRole toApiRole(MessageEntity.Role role) {
+    return switch (role) {
+      case user -> MessageRole.USER;
+      case assistant -> MessageRole.ASSISTANT;
+      case system -> MessageRole.SYSTEM;
+    };
+  }
+
+  static boolean isDefaultTitle(ChatEntity chat) {
     String t = chat.getTitle();
     if (t == null) return true;
     t = t.trim();
     return t.isEmpty() || t.equalsIgnoreCase("New chat");
   }
 
-  private String sanitizeTitle(String s) {
-    if (s == null) return null;
-    String t = s.trim();
-    if (t.startsWith("\"") && t.endsWith("\"") && t.length() >= 2) {
-      t = t.substring(1, t.length() - 1).trim();
-    }
-    t = t.replaceAll("\\s+", " ");
-    while (!t.isEmpty()) {
-      char c = t.charAt(t.length() - 1);
-      if (c == '.' || c == '!' || c == '?' || c == ':' || c == ';') {
-        t = t.substring(0, t.length() - 1).trim();
-      } else {
-        break;
+  private static String fingerprint(String chatId, SendMessageRequest req) {
+    String forceProviderId = req.getModelOverrides() != null ? req.getModelOverrides().getForceProviderId() : null;
+    String forceModelId = req.getModelOverrides() != null ? req.getModelOverrides().getForceModelId() : null;
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String part : new String[] {chatId, req.getContent(), forceProviderId, forceModelId}) {
+        digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
       }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
     }
-    if (t.length() > 60) t = t.substring(0, 60).trim();
-    return t.isBlank() ? null : t;
   }
 }
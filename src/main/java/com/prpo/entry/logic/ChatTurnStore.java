@@ -0,0 +1,188 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.ChatEntity;
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.TokenEstimator;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.MessageRepository;
+import jakarta.transaction.Transactional;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short transactional phases of a chat turn. {@link ChatService} calls the router between
+ * {@link #beginTurn} and {@link #completeTurn} with no transaction or connection held.
+ */
+@Service
+public class ChatTurnStore {
+
+  public record TurnStart(
+      String chatId,
+      MessageEntity userMessage,
+      List<RouterClient.ContextMessage> context,
+      boolean defaultTitle
+  ) {}
+
+  private static final int PREVIEW_LENGTH = 140;
+
+  private final ChatRepository chatRepository;
+  private final MessageRepository messageRepository;
+  private final ContextBuilder contextBuilder;
+  private final ConversationCache conversationCache;
+  private final UsageOutbox usageOutbox;
+  private final UsageRollups usageRollups;
+  private final MessageCompression compression;
+
+  public ChatTurnStore(
+      ChatRepository chatRepository,
+      MessageRepository messageRepository,
+      ContextBuilder contextBuilder,
+      ConversationCache conversationCache,
+      UsageOutbox usageOutbox,
+      UsageRollups usageRollups,
+      MessageCompression compression
+  ) {
+    this.chatRepository = chatRepository;
+    this.messageRepository = messageRepository;
+    this.contextBuilder = contextBuilder;
+    this.conversationCache = conversationCache;
+    this.usageOutbox = usageOutbox;
+    this.usageRollups = usageRollups;
+    this.compression = compression;
+  }
+
+  @Transactional
+  public TurnStart beginTurn(String userId, String chatId, String content, String forceModelId) {
+    ChatEntity chat = requireChat(userId, chatId);
+    int messageCount = messageCount(chat);
+
+    MessageEntity userMsg = new MessageEntity();
+    userMsg.setChat(chat);
+    userMsg.setRole(MessageEntity.Role.user);
+    compression.setContent(userMsg, content);
+    userMsg.setTokenCount(TokenEstimator.estimate(content));
+    userMsg = messageRepository.saveAndFlush(userMsg);
+    chatRepository.recordMessage(chat.getId(), preview(content));
+    appendToCache(chat.getId(), messageCount, userMsg);
+
+    String budgetModelId = forceModelId != null ? forceModelId : chat.getLastModelId();
+    List<RouterClient.ContextMessage> context = contextBuilder.build(chat.getId(), messageCount + 1, budgetModelId);
+
+    return new TurnStart(chat.getId(), userMsg, context, ChatService.isDefaultTitle(chat));
+  }
+
+  @Transactional
+  public MessageEntity completeTurn(
+      String userId,
+      String chatId,
+      String requestId,
+      RouterClient.RouteResult routed
+  ) {
+    ChatEntity chat = requireChat(userId, chatId);
+    int messageCount = messageCount(chat);
+
+    MessageEntity assistantMsg = new MessageEntity();
+    assistantMsg.setChat(chat);
+    assistantMsg.setRole(MessageEntity.Role.assistant);
+    compression.setContent(assistantMsg, routed.assistantContent());
+    assistantMsg.setProviderId(routed.providerId());
+    assistantMsg.setModelId(routed.modelId());
+    assistantMsg.setRequestId(requestId);
+    assistantMsg.setTokenCount(routed.completionTokens() != null
+        ? routed.completionTokens()
+        : TokenEstimator.estimate(routed.assistantContent()));
+    assistantMsg = messageRepository.save(assistantMsg);
+    chatRepository.recordMessage(chat.getId(), preview(routed.assistantContent()));
+    appendToCache(chat.getId(), messageCount, assistantMsg);
+
+    chat.setLastProviderId(routed.providerId());
+    chat.setLastModelId(routed.modelId());
+    chat.setUpdatedAt(OffsetDateTime.now());
+    chatRepository.save(chat);
+
+    recordUsageEvent(userId, chat.getId(), requestId, routed);
+
+    return assistantMsg;
+  }
+
+  private void recordUsageEvent(
+      String userId,
+      String conversationId,
+      String requestId,
+      RouterClient.RouteResult routed
+  ) {
+    UsageClient.UsageEvent event = new UsageClient.UsageEvent(
+        "evt_" + UUID.randomUUID(),
+        requestId,
+        userId,
+        conversationId,
+        routed.providerId(),
+        routed.modelId(),
+        routed.promptTokens(),
+        routed.completionTokens(),
+        routed.totalTokens(),
+        routed.cost(),
+        routed.currency(),
+        routed.latencyMs(),
+        OffsetDateTime.now()
+    );
+
+    usageOutbox.enqueue(event);
+    usageRollups.record(event);
+  }
+
+  @Transactional
+  public void abortTurn(String chatId, String userMessageId) {
+    messageRepository.deleteById(userMessageId);
+    messageRepository.flush();
+    chatRepository.forgetMessage(chatId);
+    conversationCache.invalidate(chatId);
+  }
+
+  @Transactional
+  public void applyTitle(String userId, String chatId, String title) {
+    chatRepository.findByIdAndUserId(chatId, userId).ifPresent(chat -> {
+      if (!ChatService.isDefaultTitle(chat)) return;
+      chat.setTitle(title);
+      chatRepository.save(chat);
+    });
+  }
+
+  static String preview(String content) {
+    if (content == null) return "";
+    String t = content.strip();
+    return t.length() <= PREVIEW_LENGTH ? t : t.substring(0, PREVIEW_LENGTH);
+  }
+
+  private void appendToCache(String chatId, int messageCount, MessageEntity m) {
+    conversationCache.append(chatId, messageCount, new ConversationCache.CachedMessage(
+        m.getRole().name(),
+        m.getContent(),
+        m.getTokenCount(),
+        m.getCreatedAt()
+    ));
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) conversationCache.invalidate(chatId);
+      }
+    });
+  }
+
+  /** The chat's message count as loaded, before this phase recorded its message. */
+  private static int messageCount(ChatEntity chat) {
+    return chat.getMessageCount() != null ? chat.getMessageCount() : 0;
+  }
+
+  private ChatEntity requireChat(String userId, String chatId) {
+    return chatRepository.findByIdAndUserId(chatId, userId)
+        .orElseThrow(() -> new IllegalArgumentException("chat not found"));
+  }
+}
@@ -0,0 +1,45 @@
+package com.prpo.entry.logic;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs background jobs on at most one instance at a time, using a Postgres session advisory
+ * lock. The lock lives on a connection held for the whole job rather than in a transaction, so
+ * the job's own transactions stay short; if the instance dies the lock goes with its connection.
+ */
+@Component
+public class ClusterJobLock {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ClusterJobLock(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** Runs {@code job} unless another instance holds {@code name}; returns whether it ran. */
+  public boolean runExclusively(String name, Runnable job) {
+    Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+      try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+        lock.setString(1, name);
+        try (ResultSet rs = lock.executeQuery()) {
+          if (!rs.next() || !rs.getBoolean(1)) return false;
+        }
+      }
+
+      try {
+        job.run();
+        return true;
+      } finally {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+          unlock.setString(1, name);
+          unlock.execute();
+        }
+      }
+    });
+    return Boolean.TRUE.equals(ran);
+  }
+}
@@ -0,0 +1,131 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.ConversationSummaryEntity;
+import com.prpo.entry.domain.MessageContentCodec;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.TokenEstimator;
+import com.prpo.entry.repository.ContextMessageView;
+import com.prpo.entry.repository.ConversationSummaryRepository;
+import com.prpo.entry.repository.MessageRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the router context from the newest messages of a chat, stopping once the token
+ * budget of the target model is spent. The newest message is always included. When the chat
+ * has a rolling summary, only messages after it are read and the summary is sent first.
+ * Hot chats are served from {@link ConversationCache} while their message count is unchanged.
+ */
+@Component
+public class ContextBuilder {
+
+  static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+  private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+  private final MessageRepository messageRepository;
+  private final ConversationSummaryRepository summaryRepository;
+  private final ConversationCache cache;
+  private final ContextProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Timer historyLoad;
+  private final DistributionSummary historyMessages;
+
+  public ContextBuilder(
+      MessageRepository messageRepository,
+      ConversationSummaryRepository summaryRepository,
+      ConversationCache cache,
+      ContextProperties properties,
+      MeterRegistry meterRegistry
+  ) {
+    this.messageRepository = messageRepository;
+    this.summaryRepository = summaryRepository;
+    this.cache = cache;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.historyLoad = meterRegistry.timer("prpo.context.history.load");
+    this.historyMessages = meterRegistry.summary("prpo.context.history.messages");
+  }
+
+  /** {@code messageCount} is the chat's current {@code message_count}, including any message just stored. */
+  public List<RouterClient.ContextMessage> build(String chatId, int messageCount, String modelId) {
+    ConversationCache.Entry entry = cache.get(chatId, messageCount);
+    if (entry == null) {
+      entry = historyLoad.record(() -> load(chatId, messageCount));
+      historyMessages.record(entry.messages().size());
+      cache.put(chatId, entry);
+    }
+
+    int budget = properties.budgetFor(modelId);
+    if (entry.summary() != null) {
+      budget -= entry.summaryTokens() + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    List<ConversationCache.CachedMessage> messages = entry.messages();
+    List<RouterClient.ContextMessage> context = new ArrayList<>(messages.size() + 1);
+    int used = 0;
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      ConversationCache.CachedMessage m = messages.get(i);
+      int tokens = m.tokenCount() + MESSAGE_OVERHEAD_TOKENS;
+      if (!context.isEmpty() && used + tokens > budget) break;
+      used += tokens;
+      context.add(new RouterClient.ContextMessage(m.role(), m.content()));
+    }
+
+    if (entry.summary() != null) {
+      context.add(new RouterClient.ContextMessage("system", SUMMARY_PREFIX + entry.summary()));
+    }
+
+    Collections.reverse(context);
+
+    String modelTag = modelId != null ? modelId : "default";
+    meterRegistry.summary("prpo.context.tokens", "model", modelTag)
+        .record(used + (entry.summary() != null ? entry.summaryTokens() + MESSAGE_OVERHEAD_TOKENS : 0));
+    meterRegistry.summary("prpo.context.messages", "model", modelTag).record(context.size());
+    return context;
+  }
+
+  private ConversationCache.Entry load(String chatId, int messageCount) {
+    PageRequest window = PageRequest.of(0, properties.maxMessages());
+
+    ConversationSummaryEntity summary = properties.summary().enabled()
+        ? summaryRepository.findById(chatId).orElse(null)
+        : null;
+
+    List<ContextMessageView> newest = summary == null
+        ? messageRepository.findNewestForContext(chatId, window)
+        : messageRepository.findNewestForContextAfter(
+            chatId, summary.getCoveredUntil(), summary.getCoveredUntilId(), window);
+
+    List<ConversationCache.CachedMessage> messages = new ArrayList<>(newest.size());
+    for (int i = newest.size() - 1; i >= 0; i--) {
+      ContextMessageView m = newest.get(i);
+      String content = MessageContentCodec.resolve(m.getContent(), m.getContentCompressed());
+      messages.add(new ConversationCache.CachedMessage(
+          m.getRole().name(),
+          content,
+          tokenCount(m, content),
+          m.getCreatedAt()
+      ));
+    }
+
+    return new ConversationCache.Entry(
+        messageCount,
+        summary != null ? summary.getSummary() : null,
+        summary != null ? summary.getTokenCount() : 0,
+        summary != null ? summary.getCoveredUntil() : null,
+        List.copyOf(messages)
+    );
+  }
+
+  private static int tokenCount(ContextMessageView m, String content) {
+    Integer stored = m.getTokenCount();
+    return stored != null ? stored : TokenEstimator.estimate(content);
+  }
+}
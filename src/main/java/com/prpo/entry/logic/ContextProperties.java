@@ -0,0 +1,39 @@
+package com.prpo.entry.logic;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "prpo.context")
+public record ContextProperties(
+    @DefaultValue("8000") int maxTokens,
+    @DefaultValue("200") int maxMessages,
+    Map<String, Integer> modelMaxTokens,
+    @DefaultValue Summary summary,
+    @DefaultValue Cache cache
+) {
+
+  public record Summary(
+      @DefaultValue("true") boolean enabled,
+      @DefaultValue("20") int keepRecentMessages,
+      @DefaultValue("20") int minMessagesToFold,
+      @DefaultValue("100") int maxMessagesPerFold,
+      @DefaultValue("2") int concurrency
+  ) {}
+
+  public record Cache(
+      @DefaultValue("true") boolean enabled,
+      @DefaultValue("10000") int maxChats,
+      @DefaultValue("50000000") long maxChars,
+      @DefaultValue("10m") Duration ttl
+  ) {}
+
+  public int budgetFor(String modelId) {
+    if (modelId != null && modelMaxTokens != null) {
+      Integer budget = modelMaxTokens.get(modelId);
+      if (budget != null && budget > 0) return budget;
+    }
+    return maxTokens;
+  }
+}
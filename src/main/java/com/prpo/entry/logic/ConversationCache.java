@@ -0,0 +1,191 @@
+package com.prpo.entry.logic;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-chat cache of the context window (rolling summary plus the newest messages after it).
+ * LRU-evicted by entry count and by total characters held. Entries are tagged with the chat's
+ * {@code message_count} and only served while the chat row still carries that count, so a turn
+ * written by another instance forces a reload; the TTL bounds how long other changes made
+ * elsewhere, such as a new summary, take to show up.
+ */
+@Component
+public class ConversationCache {
+
+  public record CachedMessage(String role, String content, int tokenCount, OffsetDateTime createdAt) {}
+
+  public record Entry(
+      int messageCount,
+      String summary,
+      int summaryTokens,
+      OffsetDateTime summaryCoveredUntil,
+      List<CachedMessage> messages
+  ) {
+
+    long weight() {
+      long w = summary != null ? summary.length() : 0;
+      for (CachedMessage m : messages) w += m.content() != null ? m.content().length() : 0;
+      return w;
+    }
+  }
+
+  private record Slot(Entry entry, long weight, long expiresAtNanos) {}
+
+  private final ContextProperties.Cache properties;
+  private final int maxMessages;
+  private final long ttlNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>(256, 0.75f, true);
+  private long totalWeight = 0;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter stale;
+  private final Counter evictions;
+
+  public ConversationCache(ContextProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties.cache();
+    this.maxMessages = properties.maxMessages();
+    this.ttlNanos = this.properties.ttl().toNanos();
+
+    this.hits = meterRegistry.counter("prpo.context.cache.requests", "result", "hit");
+    this.misses = meterRegistry.counter("prpo.context.cache.requests", "result", "miss");
+    this.stale = meterRegistry.counter("prpo.context.cache.requests", "result", "stale");
+    this.evictions = meterRegistry.counter("prpo.context.cache.evictions");
+    meterRegistry.gauge("prpo.context.cache.size", this, c -> c.size());
+    meterRegistry.gauge("prpo.context.cache.weight.chars", this, c -> c.weight());
+  }
+
+  public boolean enabled() {
+    return properties.enabled();
+  }
+
+  /** Returns the cached window if it was built when the chat had {@code messageCount} messages. */
+  public Entry get(String chatId, int messageCount) {
+    if (!properties.enabled()) return null;
+
+    lock.lock();
+    try {
+      Slot slot = slots.get(chatId);
+      if (slot != null && slot.entry().messageCount() != messageCount) {
+        removeSlot(chatId);
+        stale.increment();
+        return null;
+      }
+      if (slot != null && slot.expiresAtNanos() - System.nanoTime() <= 0) {
+        removeSlot(chatId);
+        slot = null;
+      }
+      if (slot == null) {
+        misses.increment();
+        return null;
+      }
+      hits.increment();
+      return slot.entry();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void put(String chatId, Entry entry) {
+    if (!properties.enabled()) return;
+
+    lock.lock();
+    try {
+      store(chatId, entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a message stored while the chat had {@code messageCount} messages. A window tagged
+   * with another count missed writes from elsewhere and is dropped instead.
+   */
+  public void append(String chatId, int messageCount, CachedMessage message) {
+    if (!properties.enabled()) return;
+
+    lock.lock();
+    try {
+      Slot slot = slots.get(chatId);
+      if (slot == null) return;
+      if (slot.entry().messageCount() != messageCount) {
+        removeSlot(chatId);
+        return;
+      }
+
+      List<CachedMessage> current = slot.entry().messages();
+      int from = Math.max(0, current.size() + 1 - maxMessages);
+      List<CachedMessage> next = new ArrayList<>(current.size() + 1 - from);
+      next.addAll(current.subList(from, current.size()));
+      next.add(message);
+
+      Entry old = slot.entry();
+      store(chatId, new Entry(messageCount + 1, old.summary(), old.summaryTokens(), old.summaryCoveredUntil(),
+          List.copyOf(next)));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void invalidate(String chatId) {
+    lock.lock();
+    try {
+      removeSlot(chatId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void store(String chatId, Entry entry) {
+    removeSlot(chatId);
+
+    long weight = entry.weight();
+    if (weight > properties.maxChars()) return;
+
+    slots.put(chatId, new Slot(entry, weight, System.nanoTime() + ttlNanos));
+    totalWeight += weight;
+
+    Iterator<Map.Entry<String, Slot>> it = slots.entrySet().iterator();
+    while ((slots.size() > properties.maxChats() || totalWeight > properties.maxChars()) && it.hasNext()) {
+      Map.Entry<String, Slot> eldest = it.next();
+      if (eldest.getKey().equals(chatId)) continue;
+      totalWeight -= eldest.getValue().weight();
+      it.remove();
+      evictions.increment();
+    }
+  }
+
+  private void removeSlot(String chatId) {
+    Slot removed = slots.remove(chatId);
+    if (removed != null) totalWeight -= removed.weight();
+  }
+
+  private int size() {
+    lock.lock();
+    try {
+      return slots.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long weight() {
+    lock.lock();
+    try {
+      return totalWeight;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.ConversationSummaryEntity;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.TokenEstimator;
+import com.prpo.entry.repository.ConversationSummaryRepository;
+import com.prpo.entry.repository.MessageRepository;
+import com.prpo.entry.repository.MessageView;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains a rolling summary per chat. Once more than {@code keepRecentMessages} +
+ * {@code minMessagesToFold} messages sit after the current summary, the oldest of them are
+ * folded into it by the router in the background. The summary's position is the
+ * {@code (created_at, id)} of the last folded message, read with the same keyset as
+ * {@link MessageRepository#pageAfter}.
+ */
+@Component
+public class ConversationSummarizer {
+
+  private static final Logger log = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+  private static final OffsetDateTime BEGINNING = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  private static final String BEGINNING_ID = "";
+
+  private static final String SUMMARY_PROMPT =
+      "Update the running summary of this conversation with the messages above. " +
+      "Keep facts, decisions, names, code identifiers and open questions. " +
+      "Write at most 250 words. Output ONLY the summary.";
+
+  private final MessageRepository messageRepository;
+  private final ConversationSummaryRepository summaryRepository;
+  private final RouterClient routerClient;
+  private final ConversationCache conversationCache;
+  private final ContextProperties.Summary properties;
+  private final TaskExecutor executor;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  public ConversationSummarizer(
+      MessageRepository messageRepository,
+      ConversationSummaryRepository summaryRepository,
+      RouterClient routerClient,
+      ConversationCache conversationCache,
+      ContextProperties properties,
+      @Qualifier("summaryExecutor") TaskExecutor executor
+  ) {
+    this.messageRepository = messageRepository;
+    this.summaryRepository = summaryRepository;
+    this.routerClient = routerClient;
+    this.conversationCache = conversationCache;
+    this.properties = properties.summary();
+    this.executor = executor;
+  }
+
+  public void submit(String userId, String chatId) {
+    if (!properties.enabled()) return;
+    if (!pending.add(chatId)) return;
+
+    try {
+      executor.execute(() -> {
+        try {
+          foldIfNeeded(userId, chatId);
+        } catch (RuntimeException e) {
+          log.warn("summary update failed for chat {}", chatId, e);
+        } finally {
+          pending.remove(chatId);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      pending.remove(chatId);
+    }
+  }
+
+  private void foldIfNeeded(String userId, String chatId) {
+    ConversationSummaryEntity summary = summaryRepository.findById(chatId).orElse(null);
+    OffsetDateTime after = summary != null ? summary.getCoveredUntil() : BEGINNING;
+    String afterId = summary != null ? summary.getCoveredUntilId() : BEGINNING_ID;
+
+    long unsummarized = messageRepository.countAfter(chatId, after, afterId);
+    long foldable = unsummarized - properties.keepRecentMessages();
+    if (foldable < properties.minMessagesToFold()) return;
+
+    int take = (int) Math.min(foldable, properties.maxMessagesPerFold());
+    List<MessageView> toFold = messageRepository.pageAfter(chatId, after, afterId, PageRequest.of(0, take));
+    if (toFold.isEmpty()) return;
+    Map<String, String> bodies = messageRepository.inflateCompressed(toFold);
+
+    List<RouterClient.ContextMessage> context = new ArrayList<>(toFold.size() + 1);
+    if (summary != null) {
+      context.add(new RouterClient.ContextMessage("system", "Current summary:\n" + summary.getSummary()));
+    }
+    for (MessageView m : toFold) {
+      context.add(new RouterClient.ContextMessage(m.getRole().name(), bodies.getOrDefault(m.getId(), m.getContent())));
+    }
+
+    RouterClient.RouteResult routed = routerClient.route(
+        "req_" + UUID.randomUUID(),
+        userId,
+        chatId,
+        SUMMARY_PROMPT,
+        context,
+        null,
+        null
+    );
+
+    String text = routed.assistantContent() != null ? routed.assistantContent().trim() : "";
+    if (text.isEmpty()) return;
+
+    if (summary == null) {
+      summary = new ConversationSummaryEntity();
+      summary.setChatId(chatId);
+    }
+    summary.setSummary(text);
+    MessageView last = toFold.get(toFold.size() - 1);
+    summary.setCoveredUntil(last.getCreatedAt());
+    summary.setCoveredUntilId(last.getId());
+    summary.setCoveredMessages(summary.getCoveredMessages() + toFold.size());
+    summary.setTokenCount(TokenEstimator.estimate(text));
+    summaryRepository.save(summary);
+    conversationCache.invalidate(chatId);
+  }
+}
@@ -0,0 +1,151 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.helpers.IdempotencyConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs an action at most once per {@code (scope, Idempotency-Key)}. A duplicate arriving while
+ * the first call is still running waits for its result; one arriving later within {@code ttl}
+ * gets the stored result replayed. Failed calls are not stored, so a retry runs again. Reusing a
+ * key with a different request fingerprint is rejected.
+ *
+ * <p>State is per instance; retries are expected to reach the same instance or fall outside the
+ * window, in which case they simply run again.
+ */
+@Component
+public class IdempotentRequests {
+
+  private record Completed(String fingerprint, Object result, long expiresAtNanos) {}
+
+  private record InFlight(String fingerprint, CompletableFuture<Object> result) {}
+
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final LongSupplier nanoTime;
+
+  private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, Completed> completed;
+
+  private final Counter executed;
+  private final Counter joined;
+  private final Counter replayed;
+  private final Counter conflicts;
+
+  @Autowired
+  public IdempotentRequests(
+      MeterRegistry meterRegistry,
+      @Value("${prpo.idempotency.ttl:10m}") Duration ttl,
+      @Value("${prpo.idempotency.max-entries:10000}") int maxEntries
+  ) {
+    this(meterRegistry, ttl, maxEntries, System::nanoTime);
+  }
+
+  IdempotentRequests(MeterRegistry meterRegistry, Duration ttl, int maxEntries, LongSupplier nanoTime) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    this.nanoTime = nanoTime;
+    this.completed = new LinkedHashMap<>(256, 0.75f, false) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+        return size() > IdempotentRequests.this.maxEntries
+            || eldest.getValue().expiresAtNanos() - nanoTime.getAsLong() <= 0;
+      }
+    };
+
+    this.executed = meterRegistry.counter("prpo.idempotency.requests", "result", "executed");
+    this.joined = meterRegistry.counter("prpo.idempotency.requests", "result", "joined");
+    this.replayed = meterRegistry.counter("prpo.idempotency.requests", "result", "replayed");
+    this.conflicts = meterRegistry.counter("prpo.idempotency.requests", "result", "conflict");
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String scope, String key, String fingerprint, Supplier<T> action) {
+    String id = scope + "\n" + key;
+
+    Completed done = completed(id);
+    if (done != null) {
+      requireSameRequest(done.fingerprint(), fingerprint);
+      replayed.increment();
+      return (T) done.result();
+    }
+
+    InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+    InFlight running = inFlight.putIfAbsent(id, mine);
+    if (running != null) {
+      requireSameRequest(running.fingerprint(), fingerprint);
+      joined.increment();
+      try {
+        return (T) running.result().join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException re ? re : e;
+      }
+    }
+
+    // The first call may have finished between our lookup and claiming the key.
+    Completed raced = completed(id);
+    if (raced != null) {
+      inFlight.remove(id, mine);
+      mine.result().complete(raced.result());
+      requireSameRequest(raced.fingerprint(), fingerprint);
+      replayed.increment();
+      return (T) raced.result();
+    }
+
+    executed.increment();
+    try {
+      T result = action.get();
+      store(id, new Completed(fingerprint, result, nanoTime.getAsLong() + ttlNanos));
+      mine.result().complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      mine.result().completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(id, mine);
+    }
+  }
+
+  private void requireSameRequest(String stored, String fingerprint) {
+    if (!stored.equals(fingerprint)) {
+      conflicts.increment();
+      throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+    }
+  }
+
+  private Completed completed(String id) {
+    lock.lock();
+    try {
+      Completed done = completed.get(id);
+      if (done != null && done.expiresAtNanos() - nanoTime.getAsLong() <= 0) {
+        completed.remove(id, done);
+        return null;
+      }
+      return done;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void store(String id, Completed done) {
+    lock.lock();
+    try {
+      completed.put(id, done);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
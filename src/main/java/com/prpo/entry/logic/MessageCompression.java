@@ -0,0 +1,77 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.MessageContentCodec;
+import com.prpo.entry.domain.MessageEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how a new message body is stored. With compression enabled, bodies of at least
+ * {@code threshold-chars} go to {@code content_compressed} and {@code content} keeps only a
+ * {@code preview-chars} prefix; bodies that do not shrink below {@code max-ratio} stay plain.
+ * Reads are transparent through {@link MessageEntity#getContent()}.
+ */
+@Component
+public class MessageCompression {
+
+  private final boolean enabled;
+  private final int thresholdChars;
+  private final int previewChars;
+  private final double maxRatio;
+
+  private final DistributionSummary ratio;
+  private final Counter rawBytes;
+  private final Counter storedBytes;
+  private final Counter incompressible;
+
+  public MessageCompression(
+      MeterRegistry meterRegistry,
+      @Value("${prpo.messages.compression.enabled:false}") boolean enabled,
+      @Value("${prpo.messages.compression.threshold-chars:4096}") int thresholdChars,
+      @Value("${prpo.messages.compression.preview-chars:200}") int previewChars,
+      @Value("${prpo.messages.compression.max-ratio:0.9}") double maxRatio
+  ) {
+    this.enabled = enabled;
+    this.thresholdChars = thresholdChars;
+    this.previewChars = previewChars;
+    this.maxRatio = maxRatio;
+
+    this.ratio = DistributionSummary.builder("prpo.messages.compression.ratio")
+        .description("Compressed size / original size of compressed message bodies")
+        .register(meterRegistry);
+    this.rawBytes = meterRegistry.counter("prpo.messages.compression.bytes", "stage", "raw");
+    this.storedBytes = meterRegistry.counter("prpo.messages.compression.bytes", "stage", "stored");
+    this.incompressible = meterRegistry.counter("prpo.messages.compression.incompressible");
+  }
+
+  public void setContent(MessageEntity message, String content) {
+    if (!enabled || content == null || content.length() < thresholdChars) {
+      message.setContent(content);
+      return;
+    }
+
+    byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+    byte[] compressed = MessageContentCodec.compress(utf8);
+    double r = (double) compressed.length / utf8.length;
+    if (r > maxRatio) {
+      incompressible.increment();
+      message.setContent(content);
+      return;
+    }
+
+    ratio.record(r);
+    rawBytes.increment(utf8.length);
+    storedBytes.increment(compressed.length);
+    message.setCompressedContent(content, compressed, preview(content));
+  }
+
+  private String preview(String content) {
+    int end = Math.min(previewChars, content.length());
+    if (end > 0 && Character.isHighSurrogate(content.charAt(end - 1))) end--;
+    return content.substring(0, end);
+  }
+}
@@ -0,0 +1,76 @@
+package com.prpo.entry.logic;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces identical concurrent calls: while one call for a key is running, callers with the
+ * same key wait for and share its result (or exception) instead of running their own. Nothing is
+ * kept once the call finishes.
+ *
+ * <p>A follower can still get a result that predates its own arrival: if a write commits while
+ * the leader is running, the leader may have read before it. Writers call {@link #forget} after
+ * committing so later callers start a fresh call; only callers that joined between the commit and
+ * {@code forget} can see the older result.
+ *
+ * <p>Counts {@code prpo.singleflight.calls{operation, role}}; the coalescing ratio of an
+ * operation is {@code role=follower} over all calls.
+ */
+@Component
+public class SingleFlight {
+
+  private record Key(String operation, List<Object> args) {}
+
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+
+  public SingleFlight(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    meterRegistry.gauge("prpo.singleflight.in_flight", inFlight, Map::size);
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String operation, List<Object> args, Supplier<T> call) {
+    Key key = new Key(operation, args);
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+
+    if (running != null) {
+      meterRegistry.counter("prpo.singleflight.calls", "operation", operation, "role", "follower").increment();
+      try {
+        return (T) running.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException re ? re : e;
+      }
+    }
+
+    meterRegistry.counter("prpo.singleflight.calls", "operation", operation, "role", "leader").increment();
+    try {
+      T result = call.get();
+      mine.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * Detaches running calls whose args start with {@code prefix}. Callers already waiting still get
+   * that call's result; callers arriving afterwards start a new one.
+   */
+  public void forget(Object... prefix) {
+    List<Object> match = Arrays.asList(prefix);
+    inFlight.keySet().removeIf(key -> key.args().size() >= match.size()
+        && key.args().subList(0, match.size()).equals(match));
+  }
+}
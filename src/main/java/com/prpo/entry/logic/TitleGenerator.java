@@ -0,0 +1,120 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.helpers.RouterClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates chat titles off the request path. Jobs run on the bounded {@code titleExecutor};
+ * at most one job per chat is queued at a time and jobs are dropped when the queue is full,
+ * in which case the next turn of a still untitled chat retries.
+ */
+@Component
+public class TitleGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(TitleGenerator.class);
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final String TITLE_PROMPT =
+      "Generate a short chat title (max 6 words). " +
+      "Output ONLY the title. No quotes. No trailing punctuation.";
+
+  private final RouterClient routerClient;
+  private final ChatTurnStore turnStore;
+  private final TaskExecutor executor;
+  private final MeterRegistry meterRegistry;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  public TitleGenerator(
+      RouterClient routerClient,
+      ChatTurnStore turnStore,
+      @Qualifier("titleExecutor") TaskExecutor executor,
+      MeterRegistry meterRegistry
+  ) {
+    this.routerClient = routerClient;
+    this.turnStore = turnStore;
+    this.executor = executor;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public void submit(String userId, String chatId, String content, String assistantContent) {
+    if (!pending.add(chatId)) return;
+
+    try {
+      executor.execute(() -> {
+        try {
+          generate(userId, chatId, content, assistantContent);
+        } finally {
+          pending.remove(chatId);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      pending.remove(chatId);
+      log.warn("title generation queue full, skipping chat {}", chatId);
+    }
+  }
+
+  private void generate(String userId, String chatId, String content, String assistantContent) {
+    List<RouterClient.ContextMessage> titleContext = new ArrayList<>();
+    titleContext.add(new RouterClient.ContextMessage("user", content));
+    titleContext.add(new RouterClient.ContextMessage("assistant", assistantContent));
+
+    String titleRequestId = "req_" + UUID.randomUUID();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "error";
+
+    try {
+      RouterClient.RouteResult titleRouted = routerClient.route(
+          titleRequestId,
+          userId,
+          chatId,
+          TITLE_PROMPT,
+          titleContext,
+          null,
+          null
+      );
+
+      String newTitle = sanitizeTitle(titleRouted.assistantContent());
+      if (newTitle != null) {
+        turnStore.applyTitle(userId, chatId, newTitle);
+      }
+      outcome = newTitle != null ? "success" : "empty";
+    } catch (RuntimeException e) {
+      log.warn("title generation failed for chat {}", chatId, e);
+    } finally {
+      sample.stop(meterRegistry.timer("prpo.title.generation", "outcome", outcome));
+    }
+  }
+
+  static String sanitizeTitle(String s) {
+    if (s == null) return null;
+    String t = s.trim();
+    if (t.startsWith("\"") && t.endsWith("\"") && t.length() >= 2) {
+      t = t.substring(1, t.length() - 1).trim();
+    }
+    t = WHITESPACE.matcher(t).replaceAll(" ");
+    while (!t.isEmpty()) {
+      char c = t.charAt(t.length() - 1);
+      if (c == '.' || c == '!' || c == '?' || c == ':' || c == ';') {
+        t = t.substring(0, t.length() - 1).trim();
+      } else {
+        break;
+      }
+    }
+    if (t.length() > 60) t = t.substring(0, 60).trim();
+    return t.isBlank() ? null : t;
+  }
+}
@@ -0,0 +1,106 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.model.UsageCredits;
+import com.prpo.entry.model.UsageProviderBreakdown;
+import com.prpo.entry.model.UsageSummary;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds usage events into a {@link UsageSummary} one at a time, so callers can aggregate a
+ * stream of events without collecting it first.
+ */
+class UsageAggregator {
+
+  private static class ProviderAgg {
+    long requests = 0;
+    long tokens = 0;
+    double cost = 0.0;
+
+    long latencySumMs = 0;
+    long latencyCount = 0;
+  }
+
+  private final String userId;
+
+  private long totalRequests = 0;
+  private long totalTokens = 0;
+  private double totalCost = 0.0;
+  private String currency = null;
+
+  private final Map<String, ProviderAgg> byProvider = new HashMap<>();
+
+  UsageAggregator(String userId) {
+    this.userId = userId;
+  }
+
+  UsageAggregator add(UsageClient.UsageEventSummaryItem e) {
+    if (e == null) return this;
+    if (e.userId() == null || !e.userId().equals(userId)) return this;
+
+    String providerId = e.providerId() != null ? e.providerId() : "unknown";
+    add(providerId, 1, e.tokens() != null ? e.tokens() : 0, e.cost() != null ? e.cost() : 0.0,
+        e.latencyMs() != null && e.latencyMs() > 0 ? e.latencyMs() : 0,
+        e.latencyMs() != null && e.latencyMs() > 0 ? 1 : 0);
+    return this;
+  }
+
+  UsageAggregator add(
+      String providerId,
+      long requests,
+      long tokens,
+      double cost,
+      long latencySumMs,
+      long latencyCount
+  ) {
+    totalRequests += requests;
+    totalTokens += tokens;
+    totalCost += cost;
+
+    ProviderAgg agg = byProvider.computeIfAbsent(providerId, k -> new ProviderAgg());
+    agg.requests += requests;
+    agg.tokens += tokens;
+    agg.cost += cost;
+    agg.latencySumMs += latencySumMs;
+    agg.latencyCount += latencyCount;
+    return this;
+  }
+
+  UsageSummary toSummary(LocalDate from, LocalDate to) {
+    List<UsageProviderBreakdown> byProviderList = new ArrayList<>();
+    for (var entry : byProvider.entrySet()) {
+      ProviderAgg agg = entry.getValue();
+
+      Integer avgLatencyMs = null;
+      if (agg.latencyCount > 0) {
+        avgLatencyMs = (int) Math.round((double) agg.latencySumMs / (double) agg.latencyCount);
+      }
+
+      UsageProviderBreakdown b = new UsageProviderBreakdown();
+      b.setProviderId(entry.getKey());
+      b.setRequests((int) agg.requests);
+      b.setTokens((int) agg.tokens);
+      b.setCost(agg.cost);
+      b.setAvgLatencyMs(avgLatencyMs);
+      byProviderList.add(b);
+    }
+
+    byProviderList.sort(Comparator.comparing(UsageProviderBreakdown::getProviderId));
+
+    UsageSummary summary = new UsageSummary();
+    summary.setFrom(from);
+    summary.setTo(to);
+    summary.setTotalCost(totalCost);
+    summary.setCurrency(currency != null ? currency : "EUR");
+    summary.setTotalRequests((int) totalRequests);
+    summary.setTotalTokens((int) totalTokens);
+    summary.setByProvider(byProviderList);
+    summary.setCredits(new ArrayList<UsageCredits>());
+    return summary;
+  }
+}
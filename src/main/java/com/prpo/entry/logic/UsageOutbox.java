@@ -0,0 +1,97 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.repository.UsageOutboxRepository;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UsageOutbox {
+
+  private final UsageOutboxRepository outboxRepository;
+
+  public UsageOutbox(UsageOutboxRepository outboxRepository) {
+    this.outboxRepository = outboxRepository;
+  }
+
+  @Transactional
+  public void enqueue(UsageClient.UsageEvent event) {
+    UsageOutboxEntity row = new UsageOutboxEntity();
+    row.setEventId(event.eventId());
+    row.setRequestId(event.requestId());
+    row.setUserId(event.userId());
+    row.setConversationId(event.conversationId());
+    row.setProviderId(event.providerId());
+    row.setModelId(event.modelId());
+    row.setPromptTokens(event.promptTokens());
+    row.setCompletionTokens(event.completionTokens());
+    row.setTotalTokens(event.totalTokens());
+    row.setCost(event.cost());
+    row.setCurrency(event.currency());
+    row.setLatencyMs(event.latencyMs());
+    row.setOccurredAt(event.timestamp());
+    outboxRepository.save(row);
+  }
+
+  @Transactional
+  public List<UsageOutboxEntity> claimBatch(int batchSize, Duration lease) {
+    List<UsageOutboxEntity> rows = outboxRepository.lockDueBatch(batchSize);
+    if (rows.isEmpty()) return rows;
+
+    List<String> ids = rows.stream().map(UsageOutboxEntity::getEventId).toList();
+    outboxRepository.lease(ids, OffsetDateTime.now().plus(lease));
+    return rows;
+  }
+
+  @Transactional
+  public void markDelivered(List<String> eventIds) {
+    if (eventIds.isEmpty()) return;
+    outboxRepository.deleteAllByIdInBatch(eventIds);
+  }
+
+  @Transactional
+  public boolean markFailed(String eventId, String error, Duration backoff, int maxAttempts) {
+    UsageOutboxEntity row = outboxRepository.findById(eventId).orElse(null);
+    if (row == null) return false;
+
+    row.setAttempts(row.getAttempts() + 1);
+    row.setLastError(error);
+    if (row.getAttempts() >= maxAttempts) {
+      row.setStatus(UsageOutboxEntity.Status.dead);
+    } else {
+      row.setNextAttemptAt(OffsetDateTime.now().plus(backoff));
+    }
+    outboxRepository.save(row);
+    return row.getStatus() == UsageOutboxEntity.Status.dead;
+  }
+
+  public long backlog() {
+    return outboxRepository.countByStatus(UsageOutboxEntity.Status.pending);
+  }
+
+  public OffsetDateTime oldestPendingCreatedAt() {
+    return outboxRepository.oldestCreatedAt(UsageOutboxEntity.Status.pending);
+  }
+
+  public static UsageClient.UsageEvent toEvent(UsageOutboxEntity row) {
+    return new UsageClient.UsageEvent(
+        row.getEventId(),
+        row.getRequestId(),
+        row.getUserId(),
+        row.getConversationId(),
+        row.getProviderId(),
+        row.getModelId(),
+        row.getPromptTokens(),
+        row.getCompletionTokens(),
+        row.getTotalTokens(),
+        row.getCost(),
+        row.getCurrency(),
+        row.getLatencyMs(),
+        row.getOccurredAt()
+    );
+  }
+}
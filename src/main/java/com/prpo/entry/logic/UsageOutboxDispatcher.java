@@ -0,0 +1,152 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.helpers.UsageClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drains {@code entry.usage_outbox} to the usage service. Rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} plus a short lease, so several instances can dispatch
+ * concurrently; the event id is the dedupe key on the usage side.
+ */
+@Component
+public class UsageOutboxDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(UsageOutboxDispatcher.class);
+
+  private record Delivery(UsageOutboxEntity row, UsageClient.RecordEventResult result, Throwable error) {}
+
+  private final UsageOutbox outbox;
+  private final UsageClient usageClient;
+
+  private final int batchSize;
+  private final int concurrency;
+  private final int maxAttempts;
+  private final Duration lease;
+  private final Duration baseBackoff;
+  private final Duration maxBackoff;
+
+  private final AtomicLong backlog = new AtomicLong();
+  private final AtomicLong lagSeconds = new AtomicLong();
+  private final Counter delivered;
+  private final Counter deduplicated;
+  private final Counter failed;
+  private final Counter dead;
+
+  public UsageOutboxDispatcher(
+      UsageOutbox outbox,
+      UsageClient usageClient,
+      MeterRegistry meterRegistry,
+      @Value("${prpo.usage.outbox.batch-size:100}") int batchSize,
+      @Value("${prpo.usage.outbox.concurrency:8}") int concurrency,
+      @Value("${prpo.usage.outbox.max-attempts:20}") int maxAttempts,
+      @Value("${prpo.usage.outbox.lease:PT1M}") Duration lease,
+      @Value("${prpo.usage.outbox.base-backoff:PT2S}") Duration baseBackoff,
+      @Value("${prpo.usage.outbox.max-backoff:PT10M}") Duration maxBackoff
+  ) {
+    this.outbox = outbox;
+    this.usageClient = usageClient;
+    this.batchSize = batchSize;
+    this.concurrency = concurrency;
+    this.maxAttempts = maxAttempts;
+    this.lease = lease;
+    this.baseBackoff = baseBackoff;
+    this.maxBackoff = maxBackoff;
+
+    meterRegistry.gauge("prpo.usage.outbox.backlog", backlog);
+    meterRegistry.gauge("prpo.usage.outbox.lag.seconds", lagSeconds);
+    this.delivered = meterRegistry.counter("prpo.usage.outbox.events", "outcome", "delivered");
+    this.deduplicated = meterRegistry.counter("prpo.usage.outbox.events", "outcome", "deduplicated");
+    this.failed = meterRegistry.counter("prpo.usage.outbox.events", "outcome", "failed");
+    this.dead = meterRegistry.counter("prpo.usage.outbox.events", "outcome", "dead");
+  }
+
+  @Scheduled(
+      fixedDelayString = "${prpo.usage.outbox.poll-interval-ms:1000}",
+      initialDelayString = "${prpo.usage.outbox.poll-interval-ms:1000}"
+  )
+  public void dispatch() {
+    try {
+      List<UsageOutboxEntity> batch;
+      do {
+        batch = outbox.claimBatch(batchSize, lease);
+        if (!batch.isEmpty()) deliver(batch);
+      } while (batch.size() == batchSize);
+
+      refreshGauges();
+    } catch (RuntimeException e) {
+      log.warn("usage outbox dispatch failed", e);
+    }
+  }
+
+  private void deliver(List<UsageOutboxEntity> batch) {
+    List<Delivery> results = Flux.fromIterable(batch)
+        .flatMap(this::send, concurrency)
+        .collectList()
+        .block();
+
+    if (results == null) return;
+
+    List<String> deliveredIds = new ArrayList<>(results.size());
+    for (Delivery d : results) {
+      if (d.error() == null) {
+        deliveredIds.add(d.row().getEventId());
+        delivered.increment();
+        if (Boolean.TRUE.equals(d.result().deduplicated())) deduplicated.increment();
+        continue;
+      }
+
+      failed.increment();
+      int attempt = d.row().getAttempts() + 1;
+      boolean isDead = outbox.markFailed(
+          d.row().getEventId(),
+          String.valueOf(d.error().getMessage()),
+          backoff(attempt),
+          maxAttempts
+      );
+      if (isDead) {
+        dead.increment();
+        log.error("usage event {} dropped after {} attempts", d.row().getEventId(), attempt, d.error());
+      }
+    }
+
+    outbox.markDelivered(deliveredIds);
+  }
+
+  private Mono<Delivery> send(UsageOutboxEntity row) {
+    return usageClient.recordEventAsync(UsageOutbox.toEvent(row))
+        .flatMap(result -> result.accepted()
+            ? Mono.just(new Delivery(row, result, null))
+            : Mono.just(new Delivery(row, result, new IllegalStateException("usage event not accepted"))))
+        .onErrorResume(err -> Mono.just(new Delivery(row, null, err)));
+  }
+
+  private Duration backoff(int attempt) {
+    long base = baseBackoff.toMillis();
+    long max = maxBackoff.toMillis();
+    long exp = base << Math.min(attempt - 1, 20);
+    long capped = Math.min(exp, max);
+    long jitter = ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+    return Duration.ofMillis(capped + jitter);
+  }
+
+  private void refreshGauges() {
+    backlog.set(outbox.backlog());
+    OffsetDateTime oldest = outbox.oldestPendingCreatedAt();
+    lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, OffsetDateTime.now()).toSeconds());
+  }
+}
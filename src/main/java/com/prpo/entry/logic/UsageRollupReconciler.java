@@ -0,0 +1,162 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.UsageDailyRollupEntity;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.UsageDailyRollupRepository;
+import com.prpo.entry.repository.UserRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds local usage rollups from the usage service. The scheduled run covers the last
+ * {@code reconcile-days} closed days of users with rollup rows or chat activity in that window;
+ * the startup backfill covers {@code backfill-days} for every known user and runs whenever the
+ * rollup table is still empty (first start after the migration) or {@code backfill-on-start}
+ * forces it. Today is never rebuilt because its events may still be in flight. Both runs hold a
+ * cluster-wide {@link ClusterJobLock}, so only one instance rebuilds at a time.
+ */
+@Component
+public class UsageRollupReconciler {
+
+  private static final Logger log = LoggerFactory.getLogger(UsageRollupReconciler.class);
+
+  static final String LOCK_NAME = "usage-rollup-reconcile";
+
+  private final UsageRollups rollups;
+  private final UsageDailyRollupRepository rollupRepository;
+  private final UserRepository userRepository;
+  private final ChatRepository chatRepository;
+  private final UsageClient usageClient;
+  private final ClusterJobLock jobLock;
+  private final TaskExecutor executor;
+
+  private final int reconcileDays;
+  private final int backfillDays;
+  private final boolean backfillOnStart;
+  private final int pageSize;
+  private final Duration slice;
+  private final int concurrency;
+
+  public UsageRollupReconciler(
+      UsageRollups rollups,
+      UsageDailyRollupRepository rollupRepository,
+      UserRepository userRepository,
+      ChatRepository chatRepository,
+      UsageClient usageClient,
+      ClusterJobLock jobLock,
+      @Qualifier("usageRollupExecutor") TaskExecutor executor,
+      @Value("${prpo.usage.rollup.reconcile-days:2}") int reconcileDays,
+      @Value("${prpo.usage.rollup.backfill-days:90}") int backfillDays,
+      @Value("${prpo.usage.rollup.backfill-on-start:false}") boolean backfillOnStart,
+      @Value("${prpo.usage.summary.page-size:500}") int pageSize,
+      @Value("${prpo.usage.summary.slice:7d}") Duration slice,
+      @Value("${prpo.usage.summary.concurrency:4}") int concurrency
+  ) {
+    this.rollups = rollups;
+    this.rollupRepository = rollupRepository;
+    this.userRepository = userRepository;
+    this.chatRepository = chatRepository;
+    this.usageClient = usageClient;
+    this.jobLock = jobLock;
+    this.executor = executor;
+    this.reconcileDays = reconcileDays;
+    this.backfillDays = backfillDays;
+    this.backfillOnStart = backfillOnStart;
+    this.pageSize = pageSize;
+    this.slice = slice;
+    this.concurrency = concurrency;
+  }
+
+  @Scheduled(cron = "${prpo.usage.rollup.reconcile-cron:0 30 3 * * *}", zone = "UTC")
+  public void reconcileRecent() {
+    exclusively(this::reconcileClosedDays);
+  }
+
+  private void reconcileClosedDays() {
+    LocalDate toDay = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+    LocalDate fromDay = toDay.minusDays(Math.max(reconcileDays, 1) - 1L);
+
+    // Users with chat activity in the window may have no rollup rows yet (e.g. events from
+    // before the rollups existed), so they are reconciled as well.
+    Set<String> userIds = new LinkedHashSet<>(rollupRepository.findActiveUserIds(fromDay));
+    userIds.addAll(chatRepository.findUserIdsActiveSince(fromDay.atStartOfDay().atOffset(ZoneOffset.UTC)));
+    run(List.copyOf(userIds), fromDay, toDay);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillOnStart() {
+    boolean empty = !rollupRepository.hasAnyRows();
+    if (!backfillOnStart && !empty) return;
+
+    if (empty) log.info("usage rollups are empty, backfilling the last {} days", backfillDays);
+
+    // Off the startup thread so readiness is not held up by a full backfill.
+    executor.execute(() -> exclusively(this::backfill));
+  }
+
+  private void exclusively(Runnable job) {
+    if (!jobLock.runExclusively(LOCK_NAME, job)) {
+      log.info("usage rollup reconcile is running on another instance, skipping");
+    }
+  }
+
+  private void backfill() {
+    LocalDate toDay = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+    LocalDate fromDay = toDay.minusDays(Math.max(backfillDays, 1) - 1L);
+    run(userRepository.findAllIds(), fromDay, toDay);
+  }
+
+  private void run(List<String> userIds, LocalDate fromDay, LocalDate toDay) {
+    int failed = 0;
+    for (String userId : userIds) {
+      try {
+        reconcile(userId, fromDay, toDay);
+      } catch (RuntimeException e) {
+        failed++;
+        log.warn("usage rollup reconcile failed for user {}", userId, e);
+      }
+    }
+    log.info("reconciled usage rollups {}..{} for {} users ({} failed)", fromDay, toDay, userIds.size(), failed);
+  }
+
+  public void reconcile(String userId, LocalDate fromDay, LocalDate toDay) {
+    Map<UsageDailyRollupEntity.Key, UsageRollups.Counts> counts = new HashMap<>();
+    Set<String> eventIds = new HashSet<>();
+
+    usageClient
+        .streamEvents(
+            userId,
+            fromDay.atStartOfDay().atOffset(ZoneOffset.UTC),
+            toDay.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC).minusNanos(1),
+            pageSize,
+            slice,
+            concurrency
+        )
+        .filter(e -> userId.equals(e.userId()))
+        .doOnNext(e -> {
+          if (e.eventId() != null && !eventIds.add(e.eventId())) return;
+          counts.computeIfAbsent(UsageRollups.key(userId, e.timestamp(), e.providerId(), e.modelId()), k -> new UsageRollups.Counts())
+              .add(e.tokens(), e.cost(), e.latencyMs());
+        })
+        .blockLast();
+
+    rollups.replace(userId, fromDay, toDay, counts, eventIds);
+  }
+}
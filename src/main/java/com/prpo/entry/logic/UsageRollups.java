@@ -0,0 +1,185 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.domain.UsageDailyRollupEntity;
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.model.UsageSummary;
+import com.prpo.entry.repository.ProviderUsageView;
+import com.prpo.entry.repository.UsageDailyRollupRepository;
+import com.prpo.entry.repository.UsageOutboxRepository;
+import jakarta.transaction.Transactional;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-user daily usage rollups in {@code entry.usage_daily_rollups}. Incremented in the same
+ * transaction that enqueues the usage event, read by the usage summary, and periodically
+ * rebuilt from the usage service by {@link UsageRollupReconciler}. Both writes take a per-user
+ * advisory lock so a rebuild cannot overwrite an increment committed while it ran.
+ */
+@Service
+public class UsageRollups {
+
+  static final LocalDate MIN_DAY = LocalDate.of(1970, 1, 1);
+  static final LocalDate MAX_DAY = LocalDate.of(9999, 12, 31);
+
+  static final class Counts {
+    long requests;
+    long tokens;
+    double cost;
+    long latencySumMs;
+    long latencyCount;
+
+    void add(Integer tokens, Double cost, Integer latencyMs) {
+      this.requests += 1;
+      if (tokens != null) this.tokens += tokens;
+      if (cost != null) this.cost += cost;
+      if (latencyMs != null && latencyMs > 0) {
+        this.latencySumMs += latencyMs;
+        this.latencyCount += 1;
+      }
+    }
+  }
+
+  private final UsageDailyRollupRepository rollupRepository;
+  private final UsageOutboxRepository outboxRepository;
+  private final UsageSummaryCache summaryCache;
+
+  public UsageRollups(
+      UsageDailyRollupRepository rollupRepository,
+      UsageOutboxRepository outboxRepository,
+      UsageSummaryCache summaryCache
+  ) {
+    this.rollupRepository = rollupRepository;
+    this.outboxRepository = outboxRepository;
+    this.summaryCache = summaryCache;
+  }
+
+  @Transactional
+  public void record(UsageClient.UsageEvent event) {
+    Integer latencyMs = event.latencyMs();
+    boolean hasLatency = latencyMs != null && latencyMs > 0;
+
+    rollupRepository.lockUser(event.userId());
+    rollupRepository.increment(
+        event.userId(),
+        dayOf(event.timestamp()),
+        keyPart(event.providerId()),
+        keyPart(event.modelId()),
+        event.totalTokens() != null ? event.totalTokens() : 0,
+        event.cost() != null ? event.cost() : 0.0,
+        hasLatency ? latencyMs : 0,
+        hasLatency ? 1 : 0
+    );
+    invalidateSummariesAfterCommit(event.userId());
+  }
+
+  public UsageSummary summarize(String userId, LocalDate from, LocalDate to) {
+    List<ProviderUsageView> rows = rollupRepository.summarizeByProvider(
+        userId,
+        from != null ? from : MIN_DAY,
+        to != null ? to : MAX_DAY
+    );
+
+    UsageAggregator agg = new UsageAggregator(userId);
+    for (ProviderUsageView r : rows) {
+      agg.add(
+          r.getProviderId(),
+          nz(r.getRequests()),
+          nz(r.getTokens()),
+          r.getCost() != null ? r.getCost() : 0.0,
+          nz(r.getLatencySumMs()),
+          nz(r.getLatencyCount())
+      );
+    }
+    return agg.toSummary(from, to);
+  }
+
+  /**
+   * Replaces the user's rollups for {@code [fromDay, toDay]} with counts rebuilt from the usage
+   * service, plus events still waiting in the outbox that the usage service has not seen.
+   */
+  @Transactional
+  public void replace(
+      String userId,
+      LocalDate fromDay,
+      LocalDate toDay,
+      Map<UsageDailyRollupEntity.Key, Counts> remote,
+      Set<String> remoteEventIds
+  ) {
+    // Pending events are read under the lock, so one recorded concurrently is either seen here
+    // or incremented on top of the rebuilt rows once this commits.
+    rollupRepository.lockUser(userId);
+    Map<UsageDailyRollupEntity.Key, Counts> counts = new HashMap<>(remote);
+
+    List<UsageOutboxEntity> pending = outboxRepository.findByUserIdAndStatusAndOccurredAtBetween(
+        userId,
+        UsageOutboxEntity.Status.pending,
+        fromDay.atStartOfDay().atOffset(ZoneOffset.UTC),
+        toDay.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC).minusNanos(1)
+    );
+    for (UsageOutboxEntity e : pending) {
+      if (remoteEventIds.contains(e.getEventId())) continue;
+      counts.computeIfAbsent(key(userId, e.getOccurredAt(), e.getProviderId(), e.getModelId()), k -> new Counts())
+          .add(e.getTotalTokens(), e.getCost(), e.getLatencyMs());
+    }
+
+    rollupRepository.deleteRange(userId, fromDay, toDay);
+    rollupRepository.flush();
+
+    OffsetDateTime now = OffsetDateTime.now();
+    List<UsageDailyRollupEntity> rows = new ArrayList<>(counts.size());
+    for (var entry : counts.entrySet()) {
+      Counts c = entry.getValue();
+      UsageDailyRollupEntity row = new UsageDailyRollupEntity();
+      row.setId(entry.getKey());
+      row.setRequests(c.requests);
+      row.setTokens(c.tokens);
+      row.setCost(c.cost);
+      row.setLatencySumMs(c.latencySumMs);
+      row.setLatencyCount(c.latencyCount);
+      row.setUpdatedAt(now);
+      rows.add(row);
+    }
+    rollupRepository.saveAll(rows);
+    invalidateSummariesAfterCommit(userId);
+  }
+
+  private void invalidateSummariesAfterCommit(String userId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      summaryCache.invalidateUser(userId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        summaryCache.invalidateUser(userId);
+      }
+    });
+  }
+
+  static UsageDailyRollupEntity.Key key(String userId, OffsetDateTime at, String providerId, String modelId) {
+    return new UsageDailyRollupEntity.Key(userId, dayOf(at), keyPart(providerId), keyPart(modelId));
+  }
+
+  private static LocalDate dayOf(OffsetDateTime at) {
+    return (at != null ? at : OffsetDateTime.now()).atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+  }
+
+  private static String keyPart(String s) {
+    return s != null ? s : "unknown";
+  }
+
+  private static long nz(Long v) {
+    return v != null ? v : 0L;
+  }
+}
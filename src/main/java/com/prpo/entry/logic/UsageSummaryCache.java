@@ -0,0 +1,209 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.model.UsageSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stale-while-revalidate cache of usage summaries keyed by {@code (userId, from, to)}.
+ *
+ * <p>Fresh entries are served as-is. Entries past {@code fresh-ttl} but within {@code max-stale}
+ * are served immediately, marked stale, while a single refresh runs on {@code usageSummaryExecutor}.
+ * Invalidated or too-old entries are reloaded on the caller's thread; if that load fails the last
+ * good value is served, marked stale, instead of failing the request.
+ *
+ * <p>Invalidation only records when a user was last invalidated; an entry that started loading
+ * before that time counts as invalidated when it is read.
+ */
+@Component
+public class UsageSummaryCache {
+
+  private static final Logger log = LoggerFactory.getLogger(UsageSummaryCache.class);
+
+  private record Key(String userId, LocalDate from, LocalDate to) {}
+
+  private record Entry(UsageSummary value, long loadedAtNanos) {}
+
+  private final TaskExecutor executor;
+  private final long freshTtlNanos;
+  private final long maxStaleNanos;
+  private final int maxEntries;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Key, Entry> entries;
+  private final Map<String, Long> invalidatedAt;
+  private Long forgottenInvalidatedAt;
+  private final Map<Key, CompletableFuture<UsageSummary>> inFlight = new ConcurrentHashMap<>();
+
+  private final Counter fresh;
+  private final Counter stale;
+  private final Counter misses;
+  private final Counter fallbacks;
+
+  public UsageSummaryCache(
+      @Qualifier("usageSummaryExecutor") TaskExecutor executor,
+      MeterRegistry meterRegistry,
+      @Value("${prpo.usage.summary.cache.fresh-ttl:30s}") Duration freshTtl,
+      @Value("${prpo.usage.summary.cache.max-stale:1h}") Duration maxStale,
+      @Value("${prpo.usage.summary.cache.max-entries:10000}") int maxEntries
+  ) {
+    this.executor = executor;
+    this.freshTtlNanos = freshTtl.toNanos();
+    this.maxStaleNanos = maxStale.toNanos();
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > UsageSummaryCache.this.maxEntries;
+      }
+    };
+    this.invalidatedAt = new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        if (size() <= UsageSummaryCache.this.maxEntries) return false;
+        // Forgetting a user's invalidation must not revive their entries, so it now applies to all.
+        if (forgottenInvalidatedAt == null || eldest.getValue() - forgottenInvalidatedAt > 0) {
+          forgottenInvalidatedAt = eldest.getValue();
+        }
+        return true;
+      }
+    };
+
+    this.fresh = meterRegistry.counter("prpo.usage.summary.cache.requests", "result", "fresh");
+    this.stale = meterRegistry.counter("prpo.usage.summary.cache.requests", "result", "stale");
+    this.misses = meterRegistry.counter("prpo.usage.summary.cache.requests", "result", "miss");
+    this.fallbacks = meterRegistry.counter("prpo.usage.summary.cache.requests", "result", "fallback");
+  }
+
+  public UsageSummary get(String userId, LocalDate from, LocalDate to, Supplier<UsageSummary> loader) {
+    Key key = new Key(userId, from, to);
+    Entry entry;
+    boolean current;
+    lock.lock();
+    try {
+      entry = entries.get(key);
+      current = entry != null && !invalidatedSince(userId, entry.loadedAtNanos());
+    } finally {
+      lock.unlock();
+    }
+    long now = System.nanoTime();
+
+    if (current) {
+      long age = now - entry.loadedAtNanos();
+      if (age < freshTtlNanos) {
+        fresh.increment();
+        return entry.value();
+      }
+      if (age < maxStaleNanos) {
+        stale.increment();
+        refreshInBackground(key, loader);
+        return markStale(entry.value());
+      }
+    }
+
+    misses.increment();
+    try {
+      return load(key, loader).join();
+    } catch (CompletionException e) {
+      if (entry == null) {
+        throw e.getCause() instanceof RuntimeException re ? re : e;
+      }
+      fallbacks.increment();
+      log.warn("usage summary reload failed for user {}, serving last good value", userId, e.getCause());
+      return markStale(entry.value());
+    }
+  }
+
+  /** Marks every cached summary of the user as invalid; the next read reloads it. */
+  public void invalidateUser(String userId) {
+    long now = System.nanoTime();
+    lock.lock();
+    try {
+      invalidatedAt.put(userId, now);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Call with {@link #lock} held. A load that started before the latest invalidation may have missed the new event. */
+  private boolean invalidatedSince(String userId, long loadedAtNanos) {
+    Long invalidated = invalidatedAt.get(userId);
+    if (invalidated == null) invalidated = forgottenInvalidatedAt;
+    return invalidated != null && invalidated - loadedAtNanos >= 0;
+  }
+
+  private void refreshInBackground(Key key, Supplier<UsageSummary> loader) {
+    if (inFlight.containsKey(key)) return;
+
+    CompletableFuture<UsageSummary> future = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(key, future) != null) return;
+
+    try {
+      executor.execute(() -> run(key, loader, future));
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(key, future);
+      future.completeExceptionally(e);
+    }
+  }
+
+  private CompletableFuture<UsageSummary> load(Key key, Supplier<UsageSummary> loader) {
+    CompletableFuture<UsageSummary> future = new CompletableFuture<>();
+    CompletableFuture<UsageSummary> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) return existing;
+
+    run(key, loader, future);
+    return future;
+  }
+
+  private void run(Key key, Supplier<UsageSummary> loader, CompletableFuture<UsageSummary> future) {
+    long startedAt = System.nanoTime();
+    try {
+      UsageSummary value = loader.get();
+      store(key, value, startedAt);
+      future.complete(value);
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private void store(Key key, UsageSummary value, long startedAt) {
+    lock.lock();
+    try {
+      entries.put(key, new Entry(value, startedAt));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static UsageSummary markStale(UsageSummary s) {
+    UsageSummary copy = new UsageSummary();
+    copy.setFrom(s.getFrom());
+    copy.setTo(s.getTo());
+    copy.setTotalCost(s.getTotalCost());
+    copy.setCurrency(s.getCurrency());
+    copy.setTotalRequests(s.getTotalRequests());
+    copy.setTotalTokens(s.getTotalTokens());
+    copy.setByProvider(s.getByProvider());
+    copy.setCredits(s.getCredits());
+    copy.setStale(true);
+    return copy;
+  }
+}
@@ -0,0 +1,21 @@
+package com.prpo.entry.logic;
+
+import com.prpo.entry.model.UsageSummary;
+import java.time.LocalDate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UsageSummaryService {
+
+  private final UsageRollups usageRollups;
+  private final UsageSummaryCache summaryCache;
+
+  public UsageSummaryService(UsageRollups usageRollups, UsageSummaryCache summaryCache) {
+    this.usageRollups = usageRollups;
+    this.summaryCache = summaryCache;
+  }
+
+  public UsageSummary summarize(String userId, LocalDate from, LocalDate to) {
+    return summaryCache.get(userId, from, to, () -> usageRollups.summarize(userId, from, to));
+  }
+}
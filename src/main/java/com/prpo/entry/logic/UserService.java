@@ -1,32 +1,73 @@
 package com.prpo.entry.logic;
 
-import com.prpo.entry.domain.UserEntity;
 import com.prpo.entry.repository.UserRepository;
-import jakarta.transaction.Transactional;
-import java.time.OffsetDateTime;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserService {
 
+  private record KnownUser(int profileHash, long expiresAtNanos) {}
+
   private final UserRepository userRepository;
+  private final int maxKnownUsers;
+  private final long knownUserTtlNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, KnownUser> knownUsers;
 
-  public UserService(UserRepository userRepository) {
+  public UserService(
+      UserRepository userRepository,
+      @Value("${prpo.users.known-cache.max-entries:100000}") int maxKnownUsers,
+      @Value("${prpo.users.known-cache.ttl:15m}") Duration knownUserTtl
+  ) {
     this.userRepository = userRepository;
+    this.maxKnownUsers = maxKnownUsers;
+    this.knownUserTtlNanos = knownUserTtl.toNanos();
+    this.knownUsers = new LinkedHashMap<>(1024, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, KnownUser> eldest) {
+        return size() > UserService.this.maxKnownUsers;
+      }
+    };
   }
 
-  @Transactional
   public void ensureUserExists(String userId, String email, String displayName) {
-    if (userRepository.existsById(userId)) {
+    int profileHash = Objects.hash(email, displayName);
+    if (isKnown(userId, profileHash)) {
       return;
     }
 
-    UserEntity user = new UserEntity();
-    user.setId(userId);
-    user.setEmail(email);
-    user.setDisplayName(displayName);
-    user.setCreatedAt(OffsetDateTime.now());
+    userRepository.upsert(userId, email, displayName);
+    remember(userId, profileHash);
+  }
 
-    userRepository.save(user);
+  private boolean isKnown(String userId, int profileHash) {
+    lock.lock();
+    try {
+      KnownUser known = knownUsers.get(userId);
+      if (known == null) return false;
+      if (known.expiresAtNanos() - System.nanoTime() <= 0) {
+        knownUsers.remove(userId);
+        return false;
+      }
+      return known.profileHash() == profileHash;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void remember(String userId, int profileHash) {
+    lock.lock();
+    try {
+      knownUsers.put(userId, new KnownUser(profileHash, System.nanoTime() + knownUserTtlNanos));
+    } finally {
+      lock.unlock();
+    }
   }
 }
@@ -1,48 +1,130 @@
 package com.prpo.entry.repository;
 
 import com.prpo.entry.domain.ChatEntity;
+import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface ChatRepository extends JpaRepository<ChatEntity, String> {
 
-  Optional<ChatEntity> findByIdAndUserId(String id, String userId);
+  @Query("select c from ChatEntity c where c.id = :id and c.userId = :userId and c.deletedAt is null")
+  Optional<ChatEntity> findByIdAndUserId(@Param("id") String id, @Param("userId") String userId);
+
   List<ChatEntity> findByUserIdOrderByUpdatedAtDesc(String userId);
-  
+
+  @Query("""
+      select c.id as id, c.title as title, c.createdAt as createdAt, c.updatedAt as updatedAt,
+             c.lastProviderId as lastProviderId, c.lastModelId as lastModelId,
+             c.messageCount as messageCount, c.lastMessagePreview as lastMessagePreview
+      from ChatEntity c
+      where c.userId = :userId
+        and c.deletedAt is null
+      order by c.updatedAt desc, c.id desc
+      """)
+  List<ChatSummaryView> pageFirst(
+      @Param("userId") String userId,
+      Pageable pageable
+  );
+
+  @Query("""
+      select c.id as id, c.title as title, c.createdAt as createdAt, c.updatedAt as updatedAt,
+             c.lastProviderId as lastProviderId, c.lastModelId as lastModelId,
+             c.messageCount as messageCount, c.lastMessagePreview as lastMessagePreview
+      from ChatEntity c
+      where c.userId = :userId
+        and c.deletedAt is null
+        and (c.updatedAt, c.id) < (:cursorUpdatedAt, :cursorId)
+      order by c.updatedAt desc, c.id desc
+      """)
+  List<ChatSummaryView> pageAfter(
+      @Param("userId") String userId,
+      @Param("cursorUpdatedAt") OffsetDateTime cursorUpdatedAt,
+      @Param("cursorId") String cursorId,
+      Pageable pageable
+  );
+
+  @Modifying
   @Query(
       value = """
-          SELECT *
-          FROM entry.chats
-          WHERE user_id = :userId
-          ORDER BY updated_at DESC, id DESC
-          LIMIT :limitPlusOne
+          UPDATE entry.chats
+          SET message_count = message_count + 1,
+              last_message_preview = :preview
+          WHERE id = :chatId
           """,
       nativeQuery = true
   )
-  List<ChatEntity> pageFirst(
-      @Param("userId") String userId,
-      @Param("limitPlusOne") int limitPlusOne
-  );
+  int recordMessage(@Param("chatId") String chatId, @Param("preview") String preview);
 
+  /** Undoes {@link #recordMessage} after a message was deleted; the preview falls back to the newest remaining one. */
+  @Modifying
   @Query(
       value = """
-          SELECT *
+          UPDATE entry.chats c
+          SET message_count = greatest(c.message_count - 1, 0),
+              last_message_preview = (
+                SELECT left(regexp_replace(m.content, '^\\s+|\\s+$', '', 'g'), 140)
+                FROM entry.messages m
+                WHERE m.chat_id = c.id
+                ORDER BY m.created_at DESC, m.id DESC
+                LIMIT 1
+              )
+          WHERE c.id = :chatId
+          """,
+      nativeQuery = true
+  )
+  int forgetMessage(@Param("chatId") String chatId);
+
+  @Query("select distinct c.userId from ChatEntity c where c.updatedAt >= :since")
+  List<String> findUserIdsActiveSince(@Param("since") OffsetDateTime since);
+
+  @Query("select c.id from ChatEntity c where c.userId = :userId and c.deletedAt is null")
+  List<String> findLiveIds(@Param("userId") String userId);
+
+  /** Removes the chat in one statement; messages and summaries go with it via {@code ON DELETE CASCADE}. */
+  @Modifying
+  @Query(
+      value = "DELETE FROM entry.chats WHERE id = :chatId AND user_id = :userId AND deleted_at IS NULL",
+      nativeQuery = true
+  )
+  int deleteOwned(@Param("chatId") String chatId, @Param("userId") String userId);
+
+  @Modifying
+  @Query(
+      value = "UPDATE entry.chats SET deleted_at = now() WHERE id = :chatId AND user_id = :userId AND deleted_at IS NULL",
+      nativeQuery = true
+  )
+  int markDeleted(@Param("chatId") String chatId, @Param("userId") String userId);
+
+  @Modifying
+  @Query(
+      value = "UPDATE entry.chats SET deleted_at = now() WHERE user_id = :userId AND deleted_at IS NULL",
+      nativeQuery = true
+  )
+  int markAllDeleted(@Param("userId") String userId);
+
+  @Query(
+      value = """
+          SELECT id
           FROM entry.chats
-          WHERE user_id = :userId
-            AND (updated_at, id) < (:cursorUpdatedAt, :cursorId)
-          ORDER BY updated_at DESC, id DESC
-          LIMIT :limitPlusOne
+          WHERE deleted_at IS NOT NULL
+          ORDER BY deleted_at
+          LIMIT :limit
           """,
       nativeQuery = true
   )
-  List<ChatEntity> pageAfter(
-      @Param("userId") String userId,
-      @Param("cursorUpdatedAt") OffsetDateTime cursorUpdatedAt,
-      @Param("cursorId") String cursorId,
-      @Param("limitPlusOne") int limitPlusOne
-  );
+  List<String> findDeletedIds(@Param("limit") int limit);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value = "DELETE FROM entry.chats WHERE id = :chatId AND deleted_at IS NOT NULL",
+      nativeQuery = true
+  )
+  int purge(@Param("chatId") String chatId);
 }
@@ -0,0 +1,22 @@
+package com.prpo.entry.repository;
+
+import java.time.OffsetDateTime;
+
+public interface ChatSummaryView {
+
+  String getId();
+
+  String getTitle();
+
+  OffsetDateTime getCreatedAt();
+
+  OffsetDateTime getUpdatedAt();
+
+  String getLastProviderId();
+
+  String getLastModelId();
+
+  Integer getMessageCount();
+
+  String getLastMessagePreview();
+}
@@ -0,0 +1,8 @@
+package com.prpo.entry.repository;
+
+public interface CompressedBodyView {
+
+  String getId();
+
+  byte[] getContentCompressed();
+}
@@ -0,0 +1,17 @@
+package com.prpo.entry.repository;
+
+import com.prpo.entry.domain.MessageEntity;
+import java.time.OffsetDateTime;
+
+public interface ContextMessageView {
+
+  MessageEntity.Role getRole();
+
+  String getContent();
+
+  byte[] getContentCompressed();
+
+  Integer getTokenCount();
+
+  OffsetDateTime getCreatedAt();
+}
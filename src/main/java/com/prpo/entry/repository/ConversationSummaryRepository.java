@@ -0,0 +1,7 @@
+package com.prpo.entry.repository;
+
+import com.prpo.entry.domain.ConversationSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummaryEntity, String> {
+}
@@ -1,12 +1,149 @@
 package com.prpo.entry.repository;
 
+import com.prpo.entry.domain.MessageContentCodec;
 import com.prpo.entry.domain.MessageEntity;
+import jakarta.transaction.Transactional;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface MessageRepository extends JpaRepository<MessageEntity, String> {
 
-  List<MessageEntity> findByChatIdOrderByCreatedAtAsc(String chatId);
+  /** Deletes up to {@code batchSize} messages of a chat, so purging a long chat never holds one huge transaction. */
+  @Transactional
+  @Modifying
+  @Query(
+      value = """
+          DELETE FROM entry.messages
+          WHERE id IN (
+            SELECT id
+            FROM entry.messages
+            WHERE chat_id = :chatId
+            LIMIT :batchSize
+          )
+          """,
+      nativeQuery = true
+  )
+  int deleteBatch(@Param("chatId") String chatId, @Param("batchSize") int batchSize);
 
-  void deleteByChatId(String chatId);
+  @Query("""
+      select m.role as role, m.content as content, m.contentCompressed as contentCompressed,
+             m.tokenCount as tokenCount, m.createdAt as createdAt
+      from MessageEntity m
+      where m.chat.id = :chatId
+      order by m.createdAt desc, m.id desc
+      """)
+  List<ContextMessageView> findNewestForContext(@Param("chatId") String chatId, Pageable pageable);
+
+  /** Messages after the {@code (createdAt, id)} keyset position a rolling summary covers up to. */
+  @Query("""
+      select m.role as role, m.content as content, m.contentCompressed as contentCompressed,
+             m.tokenCount as tokenCount, m.createdAt as createdAt
+      from MessageEntity m
+      where m.chat.id = :chatId
+        and (m.createdAt > :afterCreatedAt or (m.createdAt = :afterCreatedAt and m.id > :afterId))
+      order by m.createdAt desc, m.id desc
+      """)
+  List<ContextMessageView> findNewestForContextAfter(
+      @Param("chatId") String chatId,
+      @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+      @Param("afterId") String afterId,
+      Pageable pageable
+  );
+
+  @Query(
+      value = """
+          SELECT count(*)
+          FROM entry.messages
+          WHERE chat_id = :chatId
+            AND (created_at, id) > (:afterCreatedAt, :afterId)
+          """,
+      nativeQuery = true
+  )
+  long countAfter(
+      @Param("chatId") String chatId,
+      @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+      @Param("afterId") String afterId
+  );
+
+  @Query("""
+      select m.id as id, m.role as role, m.content as content,
+             case when m.contentCompressed is not null then true else false end as compressed,
+             m.createdAt as createdAt, m.providerId as providerId, m.modelId as modelId, m.requestId as requestId
+      from MessageEntity m
+      where m.chat.id = :chatId
+      order by m.createdAt asc, m.id asc
+      """)
+  List<MessageView> findHistory(@Param("chatId") String chatId);
+
+  @Query("""
+      select m.id as id, m.role as role, m.content as content,
+             case when m.contentCompressed is not null then true else false end as compressed,
+             m.createdAt as createdAt, m.providerId as providerId, m.modelId as modelId, m.requestId as requestId
+      from MessageEntity m
+      where m.chat.id = :chatId
+      order by m.createdAt desc, m.id desc
+      """)
+  List<MessageView> pageLatest(@Param("chatId") String chatId, Pageable pageable);
+
+  @Query("""
+      select m.id as id, m.role as role, m.content as content,
+             case when m.contentCompressed is not null then true else false end as compressed,
+             m.createdAt as createdAt, m.providerId as providerId, m.modelId as modelId, m.requestId as requestId
+      from MessageEntity m
+      where m.chat.id = :chatId
+        and (m.createdAt, m.id) < (:cursorCreatedAt, :cursorId)
+      order by m.createdAt desc, m.id desc
+      """)
+  List<MessageView> pageBefore(
+      @Param("chatId") String chatId,
+      @Param("cursorCreatedAt") OffsetDateTime cursorCreatedAt,
+      @Param("cursorId") String cursorId,
+      Pageable pageable
+  );
+
+  @Query("""
+      select m.id as id, m.role as role, m.content as content,
+             case when m.contentCompressed is not null then true else false end as compressed,
+             m.createdAt as createdAt, m.providerId as providerId, m.modelId as modelId, m.requestId as requestId
+      from MessageEntity m
+      where m.chat.id = :chatId
+        and (m.createdAt, m.id) > (:cursorCreatedAt, :cursorId)
+      order by m.createdAt asc, m.id asc
+      """)
+  List<MessageView> pageAfter(
+      @Param("chatId") String chatId,
+      @Param("cursorCreatedAt") OffsetDateTime cursorCreatedAt,
+      @Param("cursorId") String cursorId,
+      Pageable pageable
+  );
+
+  @Query("select m.id as id, m.contentCompressed as contentCompressed from MessageEntity m where m.id in :ids")
+  List<CompressedBodyView> findCompressedBodies(@Param("ids") Collection<String> ids);
+
+  /**
+   * Full bodies of the compressed rows among {@code views}, keyed by message id, read in one
+   * query. Pages without compressed rows never touch {@code content_compressed}.
+   */
+  default Map<String, String> inflateCompressed(List<? extends MessageView> views) {
+    List<String> ids = new ArrayList<>();
+    for (MessageView v : views) {
+      if (v.isCompressed()) ids.add(v.getId());
+    }
+    if (ids.isEmpty()) return Map.of();
+
+    Map<String, String> bodies = new HashMap<>(ids.size() * 2);
+    for (CompressedBodyView body : findCompressedBodies(ids)) {
+      bodies.put(body.getId(), MessageContentCodec.decompress(body.getContentCompressed()));
+    }
+    return bodies;
+  }
 }
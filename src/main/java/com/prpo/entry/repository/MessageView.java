@@ -0,0 +1,27 @@
+package com.prpo.entry.repository;
+
+import com.prpo.entry.domain.MessageEntity;
+import java.time.OffsetDateTime;
+
+/**
+ * A message row without {@code content_compressed}. For compressed rows {@link #getContent()} is
+ * only the preview; {@link MessageRepository#inflateCompressed} reads the full bodies.
+ */
+public interface MessageView {
+
+  String getId();
+
+  MessageEntity.Role getRole();
+
+  String getContent();
+
+  boolean isCompressed();
+
+  OffsetDateTime getCreatedAt();
+
+  String getProviderId();
+
+  String getModelId();
+
+  String getRequestId();
+}
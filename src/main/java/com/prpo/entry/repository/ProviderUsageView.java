@@ -0,0 +1,16 @@
+package com.prpo.entry.repository;
+
+public interface ProviderUsageView {
+
+  String getProviderId();
+
+  Long getRequests();
+
+  Long getTokens();
+
+  Double getCost();
+
+  Long getLatencySumMs();
+
+  Long getLatencyCount();
+}
@@ -0,0 +1,88 @@
+package com.prpo.entry.repository;
+
+import com.prpo.entry.domain.UsageDailyRollupEntity;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UsageDailyRollupRepository
+    extends JpaRepository<UsageDailyRollupEntity, UsageDailyRollupEntity.Key> {
+
+  /** Holds the user's rollup lock until the surrounding transaction ends. */
+  @Query(
+      value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('usage_daily_rollups'), hashtext(:userId))",
+      nativeQuery = true
+  )
+  int lockUser(@Param("userId") String userId);
+
+  @Modifying
+  @Query(
+      value = """
+          INSERT INTO entry.usage_daily_rollups AS r
+            (user_id, day, provider_id, model_id, requests, tokens, cost, latency_sum_ms, latency_count, updated_at)
+          VALUES
+            (:userId, :day, :providerId, :modelId, 1, :tokens, :cost, :latencyMs, :latencyCount, now())
+          ON CONFLICT (user_id, day, provider_id, model_id) DO UPDATE
+          SET requests = r.requests + 1,
+              tokens = r.tokens + excluded.tokens,
+              cost = r.cost + excluded.cost,
+              latency_sum_ms = r.latency_sum_ms + excluded.latency_sum_ms,
+              latency_count = r.latency_count + excluded.latency_count,
+              updated_at = now()
+          """,
+      nativeQuery = true
+  )
+  int increment(
+      @Param("userId") String userId,
+      @Param("day") LocalDate day,
+      @Param("providerId") String providerId,
+      @Param("modelId") String modelId,
+      @Param("tokens") long tokens,
+      @Param("cost") double cost,
+      @Param("latencyMs") long latencyMs,
+      @Param("latencyCount") long latencyCount
+  );
+
+  @Query("""
+      select r.id.providerId as providerId,
+             sum(r.requests) as requests,
+             sum(r.tokens) as tokens,
+             sum(r.cost) as cost,
+             sum(r.latencySumMs) as latencySumMs,
+             sum(r.latencyCount) as latencyCount
+      from UsageDailyRollupEntity r
+      where r.id.userId = :userId
+        and r.id.day between :fromDay and :toDay
+      group by r.id.providerId
+      """)
+  List<ProviderUsageView> summarizeByProvider(
+      @Param("userId") String userId,
+      @Param("fromDay") LocalDate fromDay,
+      @Param("toDay") LocalDate toDay
+  );
+
+  @Modifying
+  @Query("""
+      delete from UsageDailyRollupEntity r
+      where r.id.userId = :userId
+        and r.id.day between :fromDay and :toDay
+      """)
+  int deleteRange(
+      @Param("userId") String userId,
+      @Param("fromDay") LocalDate fromDay,
+      @Param("toDay") LocalDate toDay
+  );
+
+  @Query("""
+      select distinct r.id.userId
+      from UsageDailyRollupEntity r
+      where r.id.day >= :fromDay
+      """)
+  List<String> findActiveUserIds(@Param("fromDay") LocalDate fromDay);
+
+  @Query(value = "SELECT EXISTS (SELECT 1 FROM entry.usage_daily_rollups)", nativeQuery = true)
+  boolean hasAnyRows();
+}
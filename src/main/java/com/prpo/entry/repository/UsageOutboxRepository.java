@@ -0,0 +1,52 @@
+package com.prpo.entry.repository;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UsageOutboxRepository extends JpaRepository<UsageOutboxEntity, String> {
+
+  @Query(
+      value = """
+          SELECT *
+          FROM entry.usage_outbox
+          WHERE status = 'pending'
+            AND next_attempt_at <= now()
+          ORDER BY next_attempt_at
+          LIMIT :batchSize
+          FOR UPDATE SKIP LOCKED
+          """,
+      nativeQuery = true
+  )
+  List<UsageOutboxEntity> lockDueBatch(@Param("batchSize") int batchSize);
+
+  @Modifying
+  @Query(
+      value = """
+          UPDATE entry.usage_outbox
+          SET next_attempt_at = :leaseUntil
+          WHERE event_id IN (:eventIds)
+          """,
+      nativeQuery = true
+  )
+  int lease(
+      @Param("eventIds") List<String> eventIds,
+      @Param("leaseUntil") OffsetDateTime leaseUntil
+  );
+
+  long countByStatus(UsageOutboxEntity.Status status);
+
+  List<UsageOutboxEntity> findByUserIdAndStatusAndOccurredAtBetween(
+      String userId,
+      UsageOutboxEntity.Status status,
+      OffsetDateTime from,
+      OffsetDateTime to
+  );
+
+  @Query("select min(o.createdAt) from UsageOutboxEntity o where o.status = :status")
+  OffsetDateTime oldestCreatedAt(@Param("status") UsageOutboxEntity.Status status);
+}
@@ -1,7 +1,45 @@
 package com.prpo.entry.repository;
 
 import com.prpo.entry.domain.UserEntity;
+import jakarta.transaction.Transactional;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<UserEntity, String> {
+
+  @Query("select u.id from UserEntity u")
+  List<String> findAllIds();
+
+  @Query("select u.chatCount from UserEntity u where u.id = :userId")
+  Integer findChatCount(@Param("userId") String userId);
+
+  @Modifying
+  @Query(
+      value = "UPDATE entry.users SET chat_count = greatest(chat_count + :delta, 0) WHERE id = :userId",
+      nativeQuery = true
+  )
+  int adjustChatCount(@Param("userId") String userId, @Param("delta") int delta);
+
+  @Transactional
+  @Modifying
+  @Query(
+      value = """
+          INSERT INTO entry.users (id, email, display_name, created_at)
+          VALUES (:userId, :email, :displayName, now())
+          ON CONFLICT (id) DO UPDATE
+          SET email = coalesce(excluded.email, entry.users.email),
+              display_name = coalesce(excluded.display_name, entry.users.display_name)
+          WHERE (excluded.email IS NOT NULL AND excluded.email IS DISTINCT FROM entry.users.email)
+             OR (excluded.display_name IS NOT NULL AND excluded.display_name IS DISTINCT FROM entry.users.display_name)
+          """,
+      nativeQuery = true
+  )
+  int upsert(
+      @Param("userId") String userId,
+      @Param("email") String email,
+      @Param("displayName") String displayName
+  );
 }
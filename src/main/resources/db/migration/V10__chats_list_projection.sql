@@ -0,0 +1,39 @@
+alter table entry.chats
+  add column if not exists message_count integer not null default 0,
+  add column if not exists last_message_preview text null;
+
+alter table entry.users
+  add column if not exists chat_count integer not null default 0;
+
+update entry.chats c
+  set message_count = s.cnt
+  from (
+    select chat_id, count(*) as cnt
+    from entry.messages
+    group by chat_id
+  ) s
+  where s.chat_id = c.id;
+
+update entry.chats c
+  set last_message_preview = left(m.content, 140)
+  from (
+    select distinct on (chat_id) chat_id, content
+    from entry.messages
+    order by chat_id, created_at desc, id desc
+  ) m
+  where m.chat_id = c.id;
+
+update entry.users u
+  set chat_count = s.cnt
+  from (
+    select user_id, count(*) as cnt
+    from entry.chats
+    group by user_id
+  ) s
+  where s.user_id = u.id;
+
+create index if not exists chats_user_list_idx
+  on entry.chats (user_id, updated_at desc, id desc)
+  include (title, created_at, last_provider_id, last_model_id, message_count, last_message_preview);
+
+drop index if exists entry.chats_user_updated_at_id_idx;
@@ -0,0 +1,13 @@
+create table if not exists entry.usage_daily_rollups (
+  user_id text not null,
+  day date not null,
+  provider_id text not null,
+  model_id text not null,
+  requests bigint not null default 0,
+  tokens bigint not null default 0,
+  cost double precision not null default 0,
+  latency_sum_ms bigint not null default 0,
+  latency_count bigint not null default 0,
+  updated_at timestamptz not null default now(),
+  constraint usage_daily_rollups_pk primary key (user_id, day, provider_id, model_id)
+);
@@ -0,0 +1,22 @@
+alter table entry.messages
+  drop constraint if exists messages_chat_id_fk;
+
+-- NOT VALID skips the full scan of messages under the table lock; V15 validates it separately.
+alter table entry.messages
+  add constraint messages_chat_id_fk
+    foreign key (chat_id) references entry.chats(id) on delete cascade
+    not valid;
+
+alter table entry.chats
+  add column if not exists deleted_at timestamptz null;
+
+create index if not exists chats_deleted_at_idx
+  on entry.chats (deleted_at)
+  where deleted_at is not null;
+
+create index if not exists chats_user_list_live_idx
+  on entry.chats (user_id, updated_at desc, id desc)
+  include (title, created_at, last_provider_id, last_model_id, message_count, last_message_preview)
+  where deleted_at is null;
+
+drop index if exists entry.chats_user_list_idx;
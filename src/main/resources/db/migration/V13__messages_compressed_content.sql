@@ -0,0 +1,6 @@
+alter table entry.messages
+  add column if not exists content_compressed bytea null;
+
+-- Already zlib-compressed; skip pglz and store out of line directly.
+alter table entry.messages
+  alter column content_compressed set storage external;
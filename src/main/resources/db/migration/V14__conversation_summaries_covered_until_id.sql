@@ -0,0 +1,20 @@
+-- Summaries now record the (created_at, id) of the last folded message so that messages
+-- sharing its timestamp are neither skipped nor folded twice.
+alter table entry.conversation_summaries
+  add column if not exists covered_until_id text null;
+
+-- Existing summaries treated every message at covered_until as covered; keep that.
+update entry.conversation_summaries s
+set covered_until_id = coalesce(
+    (
+      select max(m.id)
+      from entry.messages m
+      where m.chat_id = s.chat_id
+        and m.created_at = s.covered_until
+    ),
+    ''
+  )
+where covered_until_id is null;
+
+alter table entry.conversation_summaries
+  alter column covered_until_id set not null;
@@ -0,0 +1,4 @@
+-- Checks existing rows against the constraint added NOT VALID in V12. Runs in its own
+-- transaction and only takes SHARE UPDATE EXCLUSIVE, so reads and writes continue meanwhile.
+alter table entry.messages
+  validate constraint messages_chat_id_fk;
@@ -0,0 +1,24 @@
+create table if not exists entry.usage_outbox (
+  event_id text primary key,
+  request_id text not null,
+  user_id text not null,
+  conversation_id text not null,
+  provider_id text null,
+  model_id text null,
+  prompt_tokens integer null,
+  completion_tokens integer null,
+  total_tokens integer null,
+  cost double precision null,
+  currency text null,
+  latency_ms integer null,
+  occurred_at timestamptz not null,
+  status varchar(16) not null default 'pending',
+  attempts integer not null default 0,
+  next_attempt_at timestamptz not null default now(),
+  last_error text null,
+  created_at timestamptz not null default now()
+);
+
+create index if not exists usage_outbox_pending_idx
+  on entry.usage_outbox (next_attempt_at)
+  where status = 'pending';
@@ -0,0 +1,6 @@
+alter table entry.messages
+  add column if not exists token_count integer null;
+
+update entry.messages
+  set token_count = greatest(1, (length(content) + 3) / 4)
+  where token_count is null;
@@ -0,0 +1,10 @@
+create table if not exists entry.conversation_summaries (
+  chat_id text primary key,
+  summary text not null,
+  covered_until timestamptz not null,
+  covered_messages integer not null,
+  token_count integer not null,
+  updated_at timestamptz not null default now(),
+  constraint conversation_summaries_chat_id_fk
+    foreign key (chat_id) references entry.chats(id) on delete cascade
+);
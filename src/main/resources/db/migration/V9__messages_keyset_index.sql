@@ -0,0 +1,4 @@
+create index if not exists messages_chat_created_at_id_idx
+  on entry.messages (chat_id, created_at, id);
+
+drop index if exists entry.messages_chat_created_at_idx;
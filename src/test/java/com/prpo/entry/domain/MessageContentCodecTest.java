@@ -0,0 +1,55 @@
+package com.prpo.entry.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class MessageContentCodecTest {
+
+  private static final String TEXT = "Zdravo! Kako si? 😀 Ünïcødé and plain ASCII. ".repeat(500);
+
+  @Test
+  void roundTripsUtf8Text() {
+    byte[] compressed = MessageContentCodec.compress(TEXT.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(compressed.length).isLessThan(TEXT.length() / 10);
+    assertThat(MessageContentCodec.decompress(compressed)).isEqualTo(TEXT);
+  }
+
+  @Test
+  void roundTripsEmptyText() {
+    assertThat(MessageContentCodec.decompress(MessageContentCodec.compress(new byte[0]))).isEqualTo("");
+  }
+
+  @Test
+  void truncatedInputIsRejected() {
+    byte[] compressed = MessageContentCodec.compress(TEXT.getBytes(StandardCharsets.UTF_8));
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+    assertThatThrownBy(() -> MessageContentCodec.decompress(truncated))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("truncated");
+    assertThatThrownBy(() -> MessageContentCodec.decompress(new byte[0]))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void corruptInputIsRejected() {
+    byte[] garbage = "not zlib at all".getBytes(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> MessageContentCodec.decompress(garbage))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("corrupt");
+  }
+
+  @Test
+  void resolvePrefersTheCompressedBody() {
+    byte[] compressed = MessageContentCodec.compress(TEXT.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(MessageContentCodec.resolve("preview", compressed)).isEqualTo(TEXT);
+    assertThat(MessageContentCodec.resolve("plain", null)).isEqualTo("plain");
+  }
+}
@@ -0,0 +1,190 @@
+package com.prpo.entry.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private static final Duration OPEN_FOR = Duration.ofSeconds(30);
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  @Test
+  void staysClosedBelowMinimumCalls() {
+    CircuitBreaker breaker = breaker(10, 5, 0.5, 2);
+
+    fail(breaker, 4);
+
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    assertThat(breaker.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void opensOnceFailureRateReachesThreshold() {
+    CircuitBreaker breaker = breaker(10, 6, 0.5, 2);
+
+    succeed(breaker, 3);
+    fail(breaker, 2);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    fail(breaker, 1);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(breaker.isOpen()).isTrue();
+    assertThat(breaker.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void onlyTheLastWindowCallsCount() {
+    CircuitBreaker breaker = breaker(4, 4, 0.75, 2);
+
+    // A long healthy run must not dilute a burst of recent failures...
+    succeed(breaker, 8);
+    fail(breaker, 2);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    fail(breaker, 1);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  void oldFailuresRollOutOfTheWindow() {
+    CircuitBreaker breaker = breaker(4, 4, 0.75, 2);
+
+    fail(breaker, 2);
+    succeed(breaker, 4);
+    // ...and failures that rolled out must not count anymore: only 2 of the last 4 failed.
+    fail(breaker, 2);
+
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void halfOpensAfterOpenDurationWithLimitedTrialSlots() {
+    CircuitBreaker breaker = openBreaker(2);
+
+    now.addAndGet(OPEN_FOR.toNanos() - 1);
+    assertThat(breaker.tryAcquire()).isFalse();
+
+    now.addAndGet(1);
+    assertThat(breaker.isOpen()).isFalse();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+    assertThat(breaker.tryAcquire()).isTrue();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThat(breaker.tryAcquire()).isTrue();
+    assertThat(breaker.tryAcquire()).isFalse();
+  }
+
+  @Test
+  void closesWhenAllTrialCallsSucceedAndStartsWithAnEmptyWindow() {
+    CircuitBreaker breaker = openBreaker(2);
+    now.addAndGet(OPEN_FOR.toNanos());
+
+    breaker.tryAcquire();
+    breaker.tryAcquire();
+    breaker.onSuccess();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    breaker.onSuccess();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+    // The failures that opened it are forgotten; one new failure is below minimumCalls.
+    fail(breaker, 1);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void reopensWhenATrialCallFails() {
+    CircuitBreaker breaker = openBreaker(2);
+    now.addAndGet(OPEN_FOR.toNanos());
+
+    breaker.tryAcquire();
+    breaker.tryAcquire();
+    breaker.onSuccess();
+    breaker.onFailure();
+
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(breaker.tryAcquire()).isFalse();
+
+    // A late success from the other trial does not close it again.
+    breaker.onSuccess();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+    now.addAndGet(OPEN_FOR.toNanos());
+    assertThat(breaker.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void concurrentCallersShareTheHalfOpenSlots() throws Exception {
+    CircuitBreaker breaker = openBreaker(3);
+    now.addAndGet(OPEN_FOR.toNanos());
+
+    int threads = 32;
+    AtomicInteger admitted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      for (int i = 0; i < threads; i++) {
+        pool.execute(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          if (breaker.tryAcquire()) admitted.incrementAndGet();
+        });
+      }
+      start.countDown();
+    } finally {
+      pool.shutdown();
+      assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(admitted).hasValue(3);
+  }
+
+  @Test
+  void disabledBreakerNeverRejects() {
+    CircuitBreaker breaker = new CircuitBreaker(
+        new RouterProperties.Breaker(false, 4, 1, 0.1, OPEN_FOR, 1), now::get);
+
+    fail(breaker, 10);
+
+    assertThat(breaker.isOpen()).isFalse();
+    assertThat(breaker.tryAcquire()).isTrue();
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  private CircuitBreaker breaker(int window, int minimumCalls, double threshold, int halfOpenCalls) {
+    return new CircuitBreaker(
+        new RouterProperties.Breaker(true, window, minimumCalls, threshold, OPEN_FOR, halfOpenCalls), now::get);
+  }
+
+  private CircuitBreaker openBreaker(int halfOpenCalls) {
+    CircuitBreaker breaker = breaker(4, 2, 0.5, halfOpenCalls);
+    fail(breaker, 2);
+    assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    return breaker;
+  }
+
+  private static void succeed(CircuitBreaker breaker, int times) {
+    for (int i = 0; i < times; i++) {
+      assertThat(breaker.tryAcquire()).isTrue();
+      breaker.onSuccess();
+    }
+  }
+
+  private static void fail(CircuitBreaker breaker, int times) {
+    for (int i = 0; i < times; i++) {
+      breaker.tryAcquire();
+      breaker.onFailure();
+    }
+  }
+}
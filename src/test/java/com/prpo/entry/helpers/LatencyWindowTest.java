@@ -0,0 +1,77 @@
+package com.prpo.entry.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyWindowTest {
+
+  @Test
+  void unknownUntilTwentySamples() {
+    LatencyWindow window = new LatencyWindow(100, 0.95);
+
+    for (int i = 1; i < 20; i++) window.record(i);
+    assertThat(window.percentileMillis()).isEqualTo(-1);
+
+    window.record(20);
+    assertThat(window.percentileMillis()).isEqualTo(19);
+  }
+
+  @Test
+  void usesNearestRankIndex() {
+    assertThat(percentileOf1To20(0.5)).isEqualTo(10);
+    assertThat(percentileOf1To20(0.95)).isEqualTo(19);
+    assertThat(percentileOf1To20(0.99)).isEqualTo(20);
+    assertThat(percentileOf1To20(1.0)).isEqualTo(20);
+    assertThat(percentileOf1To20(0.01)).isEqualTo(1);
+  }
+
+  @Test
+  void ordersSamplesBeforePicking() {
+    LatencyWindow window = new LatencyWindow(20, 0.5);
+
+    for (int i = 20; i >= 1; i--) window.record(i);
+
+    assertThat(window.percentileMillis()).isEqualTo(10);
+  }
+
+  @Test
+  void recomputesEveryThirtyTwoSamples() {
+    LatencyWindow window = new LatencyWindow(20, 0.5);
+    for (int i = 0; i < 20; i++) window.record(10);
+    assertThat(window.percentileMillis()).isEqualTo(10);
+
+    for (int i = 0; i < 31; i++) window.record(500);
+    assertThat(window.percentileMillis()).isEqualTo(10);
+
+    window.record(500);
+    assertThat(window.percentileMillis()).isEqualTo(500);
+  }
+
+  @Test
+  void onlyKeepsTheLastSizeSamples() {
+    LatencyWindow window = new LatencyWindow(20, 1.0);
+    for (int i = 0; i < 20; i++) window.record(9_000);
+    assertThat(window.percentileMillis()).isEqualTo(9_000);
+
+    // 32 fast samples overwrite the whole window before the next recompute.
+    for (int i = 0; i < 32; i++) window.record(15);
+
+    assertThat(window.percentileMillis()).isEqualTo(15);
+  }
+
+  @Test
+  void windowIsAtLeastTwentySamples() {
+    LatencyWindow window = new LatencyWindow(1, 0.5);
+
+    for (int i = 1; i <= 20; i++) window.record(i);
+
+    assertThat(window.percentileMillis()).isEqualTo(10);
+  }
+
+  private static long percentileOf1To20(double percentile) {
+    LatencyWindow window = new LatencyWindow(20, percentile);
+    for (int i = 1; i <= 20; i++) window.record(i);
+    return window.percentileMillis();
+  }
+}
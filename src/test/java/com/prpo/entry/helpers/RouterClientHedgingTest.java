@@ -0,0 +1,299 @@
+package com.prpo.entry.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/** Runs {@link RouterClient#route} against a local stub router that injects latency and errors. */
+class RouterClientHedgingTest {
+
+  private record Reply(long delayMs, int status, String content) {
+
+    static Reply ok(long delayMs, String content) {
+      return new Reply(delayMs, 200, content);
+    }
+
+    static Reply status(long delayMs, int status) {
+      return new Reply(delayMs, status, null);
+    }
+  }
+
+  private static final RouterProperties.Breaker NO_BREAKER =
+      new RouterProperties.Breaker(false, 50, 20, 0.5, Duration.ofSeconds(30), 3);
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile IntFunction<Reply> replies = n -> Reply.ok(0, "ok");
+
+  private ExecutorService serverThreads;
+  private HttpServer server;
+  private InternalHttpClients httpClients;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void startStub() throws IOException {
+    serverThreads = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/internal/router/route", this::handle);
+    server.setExecutor(serverThreads);
+    server.start();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void stopStub() {
+    if (httpClients != null) httpClients.destroy();
+    server.stop(0);
+    serverThreads.shutdownNow();
+  }
+
+  @Test
+  void slowPrimaryIsHedgedAndTheFasterDuplicateWins() {
+    replies = n -> n == 1 ? Reply.ok(3_000, "slow") : Reply.ok(0, "fast");
+    RouterClient client = client(hedge(Duration.ofMillis(100), 1.0), NO_BREAKER);
+
+    long startedAt = System.nanoTime();
+    RouterClient.RouteResult result = route(client);
+
+    assertThat(result.assistantContent()).isEqualTo("fast");
+    assertThat(Duration.ofNanos(System.nanoTime() - startedAt).toMillis()).isLessThan(2_000);
+    assertThat(requests).hasValue(2);
+    assertThat(hedges("sent")).isEqualTo(1.0);
+    assertThat(hedges("won")).isEqualTo(1.0);
+  }
+
+  @Test
+  void fastPrimaryIsNotHedged() throws InterruptedException {
+    replies = n -> Reply.ok(0, "primary");
+    RouterClient client = client(hedge(Duration.ofMillis(200), 1.0), NO_BREAKER);
+
+    assertThat(route(client).assistantContent()).isEqualTo("primary");
+
+    Thread.sleep(400);
+    assertThat(requests).hasValue(1);
+    assertThat(hedges("sent")).isEqualTo(0.0);
+  }
+
+  @Test
+  void failedHedgeDoesNotFailTheCallWhilePrimaryIsPending() {
+    replies = n -> n == 1 ? Reply.ok(600, "primary") : Reply.status(0, 500);
+    RouterClient client = client(hedge(Duration.ofMillis(100), 1.0), NO_BREAKER);
+
+    assertThat(route(client).assistantContent()).isEqualTo("primary");
+    assertThat(requests).hasValue(2);
+    assertThat(hedges("won")).isEqualTo(0.0);
+  }
+
+  @Test
+  void failsOnlyOnceEveryAttemptFailed() {
+    replies = n -> n == 1 ? Reply.status(600, 502) : Reply.status(0, 500);
+    RouterClient client = client(hedge(Duration.ofMillis(100), 1.0), NO_BREAKER);
+
+    long startedAt = System.nanoTime();
+    assertThatThrownBy(() -> route(client)).isInstanceOf(RuntimeException.class);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - startedAt).toMillis()).isGreaterThanOrEqualTo(500);
+    assertThat(requests).hasValue(2);
+  }
+
+  @Test
+  void primaryFailingBeforeTheDelayIsNotHedged() throws InterruptedException {
+    replies = n -> Reply.status(0, 500);
+    RouterClient client = client(hedge(Duration.ofMillis(300), 1.0), NO_BREAKER);
+
+    assertThatThrownBy(() -> route(client)).isInstanceOf(RuntimeException.class);
+
+    Thread.sleep(500);
+    assertThat(requests).hasValue(1);
+  }
+
+  @Test
+  void hedgesStayWithinTheBudget() {
+    replies = n -> Reply.ok(250, "ok");
+    RouterClient client = client(hedge(Duration.ofMillis(50), 0.5), NO_BREAKER);
+
+    for (int i = 0; i < 4; i++) route(client);
+
+    // Budget after call n is 0.5 * n hedges: calls 2 and 4 may hedge, 1 and 3 may not.
+    assertThat(hedges("sent")).isEqualTo(2.0);
+    assertThat(hedges("over_budget")).isEqualTo(2.0);
+    assertThat(requests).hasValue(6);
+  }
+
+  @Test
+  void breakerOpensOnServerErrorsAndShortCircuitsWithoutCallingTheRouter() {
+    replies = n -> Reply.status(0, 503);
+    RouterClient client = client(
+        noHedge(), new RouterProperties.Breaker(true, 4, 2, 0.5, Duration.ofSeconds(30), 1));
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> route(client)).isNotInstanceOf(RouterUnavailableException.class);
+    }
+
+    assertThatThrownBy(client::ensureAvailable).isInstanceOf(RouterUnavailableException.class);
+    assertThatThrownBy(() -> route(client)).isInstanceOf(RouterUnavailableException.class);
+    assertThat(requests).hasValue(2);
+  }
+
+  @Test
+  void clientErrorsDoNotOpenTheBreaker() {
+    replies = n -> Reply.status(0, 400);
+    RouterClient client = client(
+        noHedge(), new RouterProperties.Breaker(true, 4, 2, 0.5, Duration.ofSeconds(30), 1));
+
+    for (int i = 0; i < 4; i++) {
+      assertThatThrownBy(() -> route(client)).isNotInstanceOf(RouterUnavailableException.class);
+    }
+
+    client.ensureAvailable();
+    assertThat(requests).hasValue(4);
+  }
+
+  @Test
+  void cachedAnswersAreServedWhileTheBreakerIsOpen() {
+    RouterClient client = client(
+        noHedge(), new RouterProperties.Breaker(true, 4, 2, 0.5, Duration.ofSeconds(30), 1), true);
+    route(client);
+
+    // One success and one failure reach the 50% threshold over the two minimum calls.
+    replies = n -> Reply.status(0, 503);
+    assertThatThrownBy(() -> route(client, "something else")).isNotInstanceOf(RouterUnavailableException.class);
+
+    client.ensureAvailable();
+    assertThat(route(client).cached()).isTrue();
+    assertThatThrownBy(() -> route(client, "a miss")).isInstanceOf(RouterUnavailableException.class);
+    assertThat(requests).hasValue(2);
+  }
+
+  private RouterClient.RouteResult route(RouterClient client) {
+    return route(client, "hello");
+  }
+
+  private RouterClient.RouteResult route(RouterClient client, String message) {
+    return client.route("req_1", "auth0|user", "conv_1", message,
+        List.of(new RouterClient.ContextMessage("user", message)), null, null);
+  }
+
+  private double hedges(String result) {
+    var counter = meterRegistry.find("prpo.router.hedges").tag("result", result).counter();
+    return counter != null ? counter.count() : 0.0;
+  }
+
+  private static RouterProperties.Hedge hedge(Duration delay, double maxRatio) {
+    return new RouterProperties.Hedge(true, delay, 0.95, Duration.ZERO, 1024, maxRatio);
+  }
+
+  private static RouterProperties.Hedge noHedge() {
+    return new RouterProperties.Hedge(false, null, 0.95, Duration.ofSeconds(2), 1024, 0.1);
+  }
+
+  private RouterClient client(RouterProperties.Hedge hedge, RouterProperties.Breaker breaker) {
+    return client(hedge, breaker, false);
+  }
+
+  private RouterClient client(RouterProperties.Hedge hedge, RouterProperties.Breaker breaker, boolean responseCache) {
+    warmUp();
+    return newClient(hedge, breaker, responseCache, meterRegistry);
+  }
+
+  /**
+   * Sends one reactive call through a throwaway client. On a cold JVM the first call spends well
+   * over the hedge delay loading Netty, so a hedge sent later could reach the stub first and get
+   * the reply meant for the primary.
+   */
+  private void warmUp() {
+    IntFunction<Reply> scenario = replies;
+    replies = n -> Reply.ok(0, "warm");
+    try {
+      route(newClient(hedge(Duration.ofSeconds(30), 1.0), NO_BREAKER, false, new SimpleMeterRegistry()));
+    } finally {
+      httpClients.destroy();
+      replies = scenario;
+      requests.set(0);
+    }
+  }
+
+  private RouterClient newClient(
+      RouterProperties.Hedge hedge,
+      RouterProperties.Breaker breaker,
+      boolean responseCache,
+      SimpleMeterRegistry meterRegistry
+  ) {
+    InternalHttpProperties.Client http = new InternalHttpProperties.Client(
+        16, 100, Duration.ofSeconds(5), Duration.ofSeconds(60), Duration.ofMinutes(10),
+        Duration.ofSeconds(2), Duration.ofSeconds(10), false, false, false, 8192);
+    httpClients = new InternalHttpClients(new InternalHttpProperties(http, http));
+    ObjectMapper objectMapper = new ObjectMapper();
+    RouterProperties.Cache cache = new RouterProperties.Cache(
+        responseCache, RouterProperties.Cache.Scope.USER, 100, 100_000, Duration.ofHours(1));
+    RouterProperties properties = new RouterProperties(hedge, breaker, cache);
+
+    return new RouterClient(
+        RestClient.builder(),
+        WebClient.builder(),
+        httpClients,
+        properties,
+        new RouterResponseCache(objectMapper, meterRegistry, properties),
+        meterRegistry,
+        objectMapper,
+        "http://127.0.0.1:" + server.getAddress().getPort(),
+        "test-token"
+    );
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Reply reply = replies.apply(requests.incrementAndGet());
+    try (InputStream in = exchange.getRequestBody()) {
+      in.readAllBytes();
+    }
+
+    try {
+      Thread.sleep(reply.delayMs());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.close();
+      return;
+    }
+
+    try {
+      if (reply.status() != 200) {
+        exchange.sendResponseHeaders(reply.status(), -1);
+        return;
+      }
+      byte[] body = """
+          {"requestId":"req_1","providerId":"stub","modelId":"stub-1","assistantContent":"%s",
+           "latencyMs":%d,"usage":{"promptTokens":3,"completionTokens":5,"totalTokens":8},
+           "estimatedCost":0.001,"currency":"EUR"}
+          """.formatted(reply.content(), reply.delayMs()).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (IOException e) {
+      // The client cancelled this attempt because the other one already won.
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.prpo.entry.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RouterResponseCacheTest {
+
+  private static final List<RouterClient.ContextMessage> CONTEXT = List.of(
+      new RouterClient.ContextMessage("user", "hi"),
+      new RouterClient.ContextMessage("assistant", "hello"));
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void keyIsStableForEqualInputs() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofHours(1));
+    RouterResponseCache other = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofHours(1));
+
+    String key = cache.key("auth0|a", "openai", null, "what now?", CONTEXT);
+
+    assertThat(key).hasSize(64).matches("[0-9a-f]+");
+    assertThat(cache.key("auth0|a", "openai", null, "what now?", List.copyOf(CONTEXT))).isEqualTo(key);
+    assertThat(other.key("auth0|a", "openai", null, "what now?", CONTEXT)).isEqualTo(key);
+  }
+
+  @Test
+  void keyChangesWithAnyInput() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofHours(1));
+    String key = cache.key("auth0|a", null, null, "what now?", CONTEXT);
+
+    assertThat(cache.key("auth0|b", null, null, "what now?", CONTEXT)).isNotEqualTo(key);
+    assertThat(cache.key("auth0|a", "openai", null, "what now?", CONTEXT)).isNotEqualTo(key);
+    assertThat(cache.key("auth0|a", null, "gpt-4o", "what now?", CONTEXT)).isNotEqualTo(key);
+    assertThat(cache.key("auth0|a", null, null, "what next?", CONTEXT)).isNotEqualTo(key);
+    assertThat(cache.key("auth0|a", null, null, "what now?", CONTEXT.subList(0, 1))).isNotEqualTo(key);
+  }
+
+  @Test
+  void globalScopeSharesKeysBetweenUsers() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.GLOBAL, 100, 1_000, Duration.ofHours(1));
+
+    assertThat(cache.key("auth0|a", null, null, "what now?", CONTEXT))
+        .isEqualTo(cache.key("auth0|b", null, null, "what now?", CONTEXT));
+  }
+
+  @Test
+  void entriesExpireAfterTtl() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofMinutes(10));
+    cache.put("k", result("answer"));
+
+    now.addAndGet(Duration.ofMinutes(10).minusNanos(1).toNanos());
+    assertThat(cache.get("k").assistantContent()).isEqualTo("answer");
+
+    now.addAndGet(1);
+    assertThat(cache.get("k")).isNull();
+    assertThat(meterRegistry.get("prpo.router.cache.size").gauge().value()).isEqualTo(0.0);
+  }
+
+  @Test
+  void putRefreshesTtl() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofMinutes(10));
+    cache.put("k", result("first"));
+
+    now.addAndGet(Duration.ofMinutes(8).toNanos());
+    cache.put("k", result("second"));
+    now.addAndGet(Duration.ofMinutes(8).toNanos());
+
+    assertThat(cache.get("k").assistantContent()).isEqualTo("second");
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedOnceOverMaxChars() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 10, Duration.ofHours(1));
+    cache.put("a", result("aaaa"));
+    cache.put("b", result("bbbb"));
+    cache.get("a");
+
+    cache.put("c", result("cccc"));
+
+    assertThat(cache.get("a")).isNotNull();
+    assertThat(cache.get("b")).isNull();
+    assertThat(cache.get("c")).isNotNull();
+  }
+
+  @Test
+  void replacingAnEntryReleasesItsWeight() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 10, Duration.ofHours(1));
+    cache.put("a", result("aaaaaa"));
+    cache.put("a", result("aa"));
+
+    cache.put("b", result("bbbbbbbb"));
+
+    assertThat(cache.get("a")).isNotNull();
+    assertThat(cache.get("b")).isNotNull();
+  }
+
+  @Test
+  void answersLargerThanMaxCharsAreNotCached() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 10, Duration.ofHours(1));
+    cache.put("a", result("aaaa"));
+
+    cache.put("big", result("x".repeat(11)));
+
+    assertThat(cache.get("big")).isNull();
+    assertThat(cache.get("a")).isNotNull();
+  }
+
+  @Test
+  void evictsOnceOverMaxEntries() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 2, 1_000, Duration.ofHours(1));
+    cache.put("a", result("a"));
+    cache.put("b", result("b"));
+    cache.put("c", result("c"));
+
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.get("b")).isNotNull();
+    assertThat(cache.get("c")).isNotNull();
+  }
+
+  @Test
+  void countsHitsAndMisses() {
+    RouterResponseCache cache = cache(RouterProperties.Cache.Scope.USER, 100, 1_000, Duration.ofHours(1));
+    cache.put("k", result("answer"));
+
+    cache.get("k");
+    cache.get("missing");
+
+    assertThat(meterRegistry.get("prpo.router.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("prpo.router.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1.0);
+  }
+
+  private RouterResponseCache cache(RouterProperties.Cache.Scope scope, int maxEntries, long maxChars, Duration ttl) {
+    return new RouterResponseCache(
+        new ObjectMapper(),
+        meterRegistry,
+        new RouterProperties.Cache(true, scope, maxEntries, maxChars, ttl),
+        now::get
+    );
+  }
+
+  private static RouterClient.RouteResult result(String content) {
+    return new RouterClient.RouteResult(content, "openai", "gpt-4o", 120, 3, 5, 8, 0.001, "EUR", false);
+  }
+}
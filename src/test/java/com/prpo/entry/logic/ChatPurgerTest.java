@@ -0,0 +1,114 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.MessageRepository;
+import com.prpo.entry.repository.PostgresTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Each purge batch commits on its own here, as it does in the scheduled job. */
+@PostgresTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatPurgerTest {
+
+  private static final String USER = "auth0|purge";
+
+  @Autowired
+  private ChatRepository chatRepository;
+
+  @Autowired
+  private MessageRepository messageRepository;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private ChatPurger purger;
+
+  @BeforeEach
+  void setUp() {
+    cleanUp();
+    jdbc.update("insert into entry.users (id, email, display_name) values (?, 'p@example.com', 'P')", USER);
+    purger = new ChatPurger(chatRepository, messageRepository,
+        new ChatDeletionProperties(10, new ChatDeletionProperties.Purge(2, 20)), meterRegistry);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    jdbc.update("delete from entry.chats where user_id = ?", USER);
+    jdbc.update("delete from entry.users where id = ?", USER);
+  }
+
+  @Test
+  void softDeletedChatsArePurgedInBatchesTogetherWithTheirSummary() {
+    chat("conv_deleted", 5);
+    jdbc.update("""
+        insert into entry.conversation_summaries
+          (chat_id, summary, covered_until, covered_until_id, covered_messages, token_count)
+        values ('conv_deleted', 'Earlier.', now(), 'msg_conv_deleted_1', 1, 3)
+        """);
+    chat("conv_live", 1);
+    new TransactionTemplate(transactionManager).executeWithoutResult(s -> chatRepository.markDeleted("conv_deleted", USER));
+
+    purger.purgeDeleted();
+
+    assertThat(count("select count(*) from entry.chats where id = 'conv_deleted'")).isZero();
+    assertThat(count("select count(*) from entry.messages where chat_id = 'conv_deleted'")).isZero();
+    assertThat(count("select count(*) from entry.conversation_summaries where chat_id = 'conv_deleted'")).isZero();
+    assertThat(count("select count(*) from entry.messages where chat_id = 'conv_live'")).isEqualTo(1);
+    assertThat(meterRegistry.get("prpo.chat.purge.messages").counter().count()).isEqualTo(5.0);
+    assertThat(meterRegistry.get("prpo.chat.purge.chats").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void aDeleteAllIsPurgedChatByChat() {
+    chat("conv_1", 3);
+    chat("conv_2", 4);
+
+    Integer marked = new TransactionTemplate(transactionManager).execute(s -> chatRepository.markAllDeleted(USER));
+
+    assertThat(marked).isEqualTo(2);
+    assertThat(chatRepository.findLiveIds(USER)).isEmpty();
+
+    purger.purgeDeleted();
+
+    assertThat(count("select count(*) from entry.chats where user_id = '" + USER + "'")).isZero();
+    assertThat(meterRegistry.get("prpo.chat.purge.messages").counter().count()).isEqualTo(7.0);
+  }
+
+  @Test
+  void liveChatsAreLeftAlone() {
+    chat("conv_live", 3);
+
+    purger.purgeDeleted();
+
+    assertThat(count("select count(*) from entry.messages where chat_id = 'conv_live'")).isEqualTo(3);
+  }
+
+  private void chat(String chatId, int messages) {
+    jdbc.update("insert into entry.chats (id, user_id) values (?, ?)", chatId, USER);
+    OffsetDateTime at = OffsetDateTime.now();
+    for (int i = 1; i <= messages; i++) {
+      jdbc.update("insert into entry.messages (id, chat_id, role, content, created_at) values (?, ?, 'user', 'hi', ?)",
+          "msg_" + chatId + "_" + i, chatId, at.plusSeconds(i));
+    }
+  }
+
+  private long count(String sql) {
+    return jdbc.queryForObject(sql, Long.class);
+  }
+}
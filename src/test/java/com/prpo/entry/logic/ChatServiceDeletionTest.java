@@ -0,0 +1,90 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.ChatEntity;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class ChatServiceDeletionTest {
+
+  private static final String USER = "auth0|user";
+  private static final String CHAT = "conv_1";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ChatRepository chatRepository = mock(ChatRepository.class);
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final ConversationCache cache = new ConversationCache(ChatTurnStoreTest.properties(), meterRegistry);
+
+  @Test
+  void zeroThresholdDeletesEvenLongChatsSynchronously() {
+    ChatService service = service(0);
+    chat(5_000);
+    when(chatRepository.deleteOwned(CHAT, USER)).thenReturn(1);
+
+    service.deleteChat(USER, CHAT);
+
+    verify(chatRepository).deleteOwned(CHAT, USER);
+    verify(chatRepository, never()).markDeleted(anyString(), anyString());
+    verify(userRepository).adjustChatCount(USER, -1);
+  }
+
+  @Test
+  void chatsBelowTheThresholdAreDeletedSynchronously() {
+    ChatService service = service(100);
+    chat(99);
+    when(chatRepository.deleteOwned(CHAT, USER)).thenReturn(1);
+
+    service.deleteChat(USER, CHAT);
+
+    verify(chatRepository, never()).markDeleted(anyString(), anyString());
+  }
+
+  @Test
+  void chatsAtTheThresholdAreOnlyMarkedForThePurger() {
+    ChatService service = service(100);
+    chat(100);
+    when(chatRepository.markDeleted(CHAT, USER)).thenReturn(1);
+
+    service.deleteChat(USER, CHAT);
+
+    verify(chatRepository, never()).deleteOwned(anyString(), anyString());
+    verify(userRepository).adjustChatCount(USER, -1);
+  }
+
+  @Test
+  void deleteAllLeavesTheMessagesToThePurgerEvenWithoutSoftDelete() {
+    ChatService service = service(0);
+    when(chatRepository.findLiveIds(USER)).thenReturn(List.of("conv_1", "conv_2"));
+    when(chatRepository.markAllDeleted(USER)).thenReturn(2);
+    cache.put("conv_1", new ConversationCache.Entry(0, null, 0, null, List.of()));
+
+    assertThat(service.deleteAllChats(USER).getDeleted()).isEqualTo(2);
+
+    verify(userRepository).adjustChatCount(USER, -2);
+    assertThat(cache.get("conv_1", 0)).isNull();
+  }
+
+  private ChatService service(int softThreshold) {
+    return new ChatService(chatRepository, null, userRepository, null, null, null, null, cache, null,
+        new SingleFlight(meterRegistry),
+        new ChatDeletionProperties(softThreshold, new ChatDeletionProperties.Purge(1000, 20)), meterRegistry);
+  }
+
+  private void chat(int messageCount) {
+    ChatEntity chat = new ChatEntity();
+    chat.setId(CHAT);
+    chat.setUserId(USER);
+    chat.setMessageCount(messageCount);
+    when(chatRepository.findByIdAndUserId(CHAT, USER)).thenReturn(Optional.of(chat));
+  }
+}
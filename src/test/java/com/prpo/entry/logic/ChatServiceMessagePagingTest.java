@@ -0,0 +1,246 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.ChatEntity;
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.model.ListMessagesResponse;
+import com.prpo.entry.model.Message;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.MessageRepository;
+import com.prpo.entry.repository.MessageView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.PageRequest;
+
+class ChatServiceMessagePagingTest {
+
+  private static final String USER = "auth0|user";
+  private static final String CHAT = "conv_1";
+  private static final OffsetDateTime T0 = OffsetDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000, ZoneOffset.UTC);
+
+  private record View(String getId, String getContent, boolean isCompressed, OffsetDateTime getCreatedAt)
+      implements MessageView {
+
+    @Override
+    public MessageEntity.Role getRole() {
+      return MessageEntity.Role.user;
+    }
+
+    @Override
+    public String getProviderId() {
+      return null;
+    }
+
+    @Override
+    public String getModelId() {
+      return null;
+    }
+
+    @Override
+    public String getRequestId() {
+      return null;
+    }
+  }
+
+  private ChatRepository chatRepository;
+  private MessageRepository messageRepository;
+  private ChatService service;
+
+  @BeforeEach
+  void setUp() {
+    chatRepository = mock(ChatRepository.class);
+    messageRepository = mock(MessageRepository.class);
+    service = new ChatService(chatRepository, messageRepository, null, null, null, null, null, null, null, null, null,
+        new SimpleMeterRegistry());
+
+    ChatEntity chat = new ChatEntity();
+    chat.setId(CHAT);
+    chat.setUserId(USER);
+    when(chatRepository.findByIdAndUserId(CHAT, USER)).thenReturn(Optional.of(chat));
+  }
+
+  @Test
+  void messageCursorRoundTripsAtMicrosecondPrecision() {
+    OffsetDateTime withNanos = T0.plusNanos(789);
+
+    ChatService.CursorParts parts = ChatService.decodeMessageCursor(
+        ChatService.encodeMessageCursor(withNanos, "msg_9f3c"));
+
+    assertThat(parts.timestamp()).isEqualTo(T0);
+    assertThat(parts.id()).isEqualTo("msg_9f3c");
+  }
+
+  @Test
+  void messageCursorNormalisesOffsetToUtc() {
+    OffsetDateTime local = T0.withOffsetSameInstant(ZoneOffset.ofHours(2));
+
+    ChatService.CursorParts parts = ChatService.decodeMessageCursor(ChatService.encodeMessageCursor(local, "msg_1"));
+
+    assertThat(parts.timestamp()).isEqualTo(T0);
+    assertThat(parts.id()).isEqualTo("msg_1");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "msg_1", ":msg_1", "123:", "abc:msg_1", "1.5:msg_1"})
+  void malformedMessageCursorsAreRejected(String cursor) {
+    assertThatThrownBy(() -> ChatService.decodeMessageCursor(cursor))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("invalid cursor");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "chat_1", ":chat_1", "123:", "abc:chat_1", "99999999999999999999:chat_1"})
+  void malformedChatListCursorsAreRejected(String cursor) {
+    assertThatThrownBy(() -> ChatService.decodeCursor(cursor))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("invalid cursor");
+  }
+
+  @Test
+  void chatListCursorRoundTripsAtMillisecondPrecision() {
+    ChatService.CursorParts parts = ChatService.decodeCursor(ChatService.encodeCursor(T0, "chat_1"));
+
+    assertThat(parts.timestamp()).isEqualTo(T0.truncatedTo(ChronoUnit.MILLIS));
+    assertThat(parts.id()).isEqualTo("chat_1");
+  }
+
+  @Test
+  void malformedCursorIsRejectedBeforeQuerying() {
+    assertThatThrownBy(() -> service.listMessages(USER, CHAT, 2, "nope", null))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    verifyNoInteractions(messageRepository);
+  }
+
+  @Test
+  void beforeAndAfterCannotBeCombined() {
+    String cursor = ChatService.encodeMessageCursor(T0, "msg_1");
+
+    assertThatThrownBy(() -> service.listMessages(USER, CHAT, 2, cursor, cursor))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("cannot be combined");
+
+    verifyNoInteractions(chatRepository, messageRepository);
+  }
+
+  @Test
+  void latestPageWithMoreRowsReturnsOldestFirstAndAnOlderCursor() {
+    when(messageRepository.pageLatest(CHAT, PageRequest.of(0, 3))).thenReturn(List.of(msg(5), msg(4), msg(3)));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, null, null);
+
+    assertThat(ids(page)).containsExactly("msg_4", "msg_5");
+    assertThat(page.getOlderCursor()).isEqualTo(ChatService.encodeMessageCursor(at(4), "msg_4"));
+    assertThat(page.getNewerCursor()).isNull();
+  }
+
+  @Test
+  void latestPageThatFitsHasNoCursors() {
+    when(messageRepository.pageLatest(CHAT, PageRequest.of(0, 3))).thenReturn(List.of(msg(2), msg(1)));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, null, null);
+
+    assertThat(ids(page)).containsExactly("msg_1", "msg_2");
+    assertThat(page.getOlderCursor()).isNull();
+    assertThat(page.getNewerCursor()).isNull();
+  }
+
+  @Test
+  void beforePageQueriesWithDecodedKeyAndPointsBackToNewer() {
+    when(messageRepository.pageBefore(eq(CHAT), any(), anyString(), any())).thenReturn(List.of(msg(3), msg(2)));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, ChatService.encodeMessageCursor(at(4), "msg_4"), null);
+
+    verify(messageRepository).pageBefore(CHAT, at(4), "msg_4", PageRequest.of(0, 3));
+    assertThat(ids(page)).containsExactly("msg_2", "msg_3");
+    assertThat(page.getOlderCursor()).isNull();
+    assertThat(page.getNewerCursor()).isEqualTo(ChatService.encodeMessageCursor(at(3), "msg_3"));
+  }
+
+  @Test
+  void afterPageKeepsAscendingOrderAndReturnsBothCursorsWhenMoreFollow() {
+    when(messageRepository.pageAfter(eq(CHAT), any(), anyString(), any()))
+        .thenReturn(List.of(msg(2), msg(3), msg(4)));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, null, ChatService.encodeMessageCursor(at(1), "msg_1"));
+
+    verify(messageRepository).pageAfter(CHAT, at(1), "msg_1", PageRequest.of(0, 3));
+    assertThat(ids(page)).containsExactly("msg_2", "msg_3");
+    assertThat(page.getOlderCursor()).isEqualTo(ChatService.encodeMessageCursor(at(2), "msg_2"));
+    assertThat(page.getNewerCursor()).isEqualTo(ChatService.encodeMessageCursor(at(3), "msg_3"));
+  }
+
+  @Test
+  void lastAfterPageHasNoNewerCursor() {
+    when(messageRepository.pageAfter(eq(CHAT), any(), anyString(), any())).thenReturn(List.of(msg(2)));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, null, ChatService.encodeMessageCursor(at(1), "msg_1"));
+
+    assertThat(ids(page)).containsExactly("msg_2");
+    assertThat(page.getOlderCursor()).isEqualTo(ChatService.encodeMessageCursor(at(2), "msg_2"));
+    assertThat(page.getNewerCursor()).isNull();
+  }
+
+  @Test
+  void emptyPageHasNoCursors() {
+    when(messageRepository.pageBefore(eq(CHAT), any(), anyString(), any())).thenReturn(List.of());
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, ChatService.encodeMessageCursor(at(1), "msg_1"), null);
+
+    assertThat(page.getItems()).isEmpty();
+    assertThat(page.getOlderCursor()).isNull();
+    assertThat(page.getNewerCursor()).isNull();
+  }
+
+  @Test
+  void compressedRowsAreListedWithTheirFullBody() {
+    when(messageRepository.pageLatest(CHAT, PageRequest.of(0, 3)))
+        .thenReturn(List.of(msg(2), new View("msg_1", "the fu", true, at(1))));
+    when(messageRepository.inflateCompressed(any())).thenReturn(Map.of("msg_1", "the full body"));
+
+    ListMessagesResponse page = service.listMessages(USER, CHAT, 2, null, null);
+
+    assertThat(page.getItems()).extracting(Message::getContent).containsExactly("the full body", "message 2");
+  }
+
+  @Test
+  void limitIsClamped() {
+    when(messageRepository.pageLatest(eq(CHAT), any())).thenReturn(List.of());
+
+    service.listMessages(USER, CHAT, 10_000, null, null);
+    service.listMessages(USER, CHAT, 0, null, null);
+
+    verify(messageRepository).pageLatest(CHAT, PageRequest.of(0, 201));
+    verify(messageRepository).pageLatest(CHAT, PageRequest.of(0, 51));
+  }
+
+  private static OffsetDateTime at(int seq) {
+    return T0.plusNanos(seq * 1_000L);
+  }
+
+  private static MessageView msg(int seq) {
+    return new View("msg_" + seq, "message " + seq, false, at(seq));
+  }
+
+  private static List<String> ids(ListMessagesResponse page) {
+    return page.getItems().stream().map(Message::getId).toList();
+  }
+}
@@ -0,0 +1,155 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.ChatEntity;
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.RouterUnavailableException;
+import com.prpo.entry.helpers.UpstreamException;
+import com.prpo.entry.model.SendMessageRequest;
+import com.prpo.entry.model.SendMessageResponse;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/** Runs whole turns through {@link ChatService} and a real {@link ChatTurnStore} over mocked repositories. */
+class ChatServiceTurnTest {
+
+  private static final String USER = "auth0|user";
+  private static final String CHAT = "conv_1";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ChatRepository chatRepository = mock(ChatRepository.class);
+  private final MessageRepository messageRepository = mock(MessageRepository.class);
+  private final RouterClient routerClient = mock(RouterClient.class);
+  private final ConversationCache cache = new ConversationCache(ChatTurnStoreTest.properties(), meterRegistry);
+  private final ChatTurnStore turnStore = new ChatTurnStore(chatRepository, messageRepository,
+      mock(ContextBuilder.class), cache, mock(UsageOutbox.class), mock(UsageRollups.class),
+      new MessageCompression(meterRegistry, false, 4096, 200, 0.9));
+  private final ChatService service = new ChatService(chatRepository, messageRepository, null, turnStore,
+      routerClient, mock(TitleGenerator.class), mock(ConversationSummarizer.class), cache, null,
+      new SingleFlight(meterRegistry), null, meterRegistry);
+
+  @BeforeEach
+  void setUp() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    ChatEntity chat = new ChatEntity();
+    chat.setId(CHAT);
+    chat.setUserId(USER);
+    chat.setTitle("Existing title");
+    chat.setMessageCount(0);
+    when(chatRepository.findByIdAndUserId(CHAT, USER)).thenReturn(Optional.of(chat));
+    when(chatRepository.recordMessage(eq(CHAT), anyString())).thenAnswer(inv -> {
+      chat.setMessageCount(chat.getMessageCount() + 1);
+      return 1;
+    });
+    when(messageRepository.saveAndFlush(any())).thenAnswer(inv -> withId(inv.getArgument(0), "msg_user"));
+    when(messageRepository.save(any())).thenAnswer(inv -> withId(inv.getArgument(0), "msg_assistant"));
+
+    cache.put(CHAT, new ConversationCache.Entry(0, null, 0, null,
+        List.of(new ConversationCache.CachedMessage("user", "earlier", 1, OffsetDateTime.now()))));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void successfulTurnKeepsBothMessages() {
+    when(routerClient.route(anyString(), eq(USER), eq(CHAT), eq("hello"), any(), isNull(), isNull()))
+        .thenReturn(new RouterClient.RouteResult("hi", "provider-x", "model-x", 50, 1, 1, 2, 0.001, "EUR", false));
+
+    SendMessageResponse resp = service.sendMessage(USER, CHAT, request("hello"));
+
+    assertThat(resp.getUserMessage().getId()).isEqualTo("msg_user");
+    assertThat(resp.getAssistantMessage().getContent()).isEqualTo("hi");
+    verify(messageRepository, never()).deleteById(anyString());
+    assertThat(cache.get(CHAT, 2).messages())
+        .extracting(ConversationCache.CachedMessage::content)
+        .containsExactly("earlier", "hello", "hi");
+  }
+
+  @Test
+  void routerFailureRemovesTheUserMessageAndRestoresTheChat() {
+    when(routerClient.route(anyString(), eq(USER), eq(CHAT), eq("hello"), any(), isNull(), isNull()))
+        .thenThrow(new IllegalStateException("connection reset"));
+
+    assertThatThrownBy(() -> service.sendMessage(USER, CHAT, request("hello")))
+        .isInstanceOf(UpstreamException.class)
+        .hasRootCauseMessage("connection reset");
+
+    verify(chatRepository).recordMessage(CHAT, "hello");
+    verify(messageRepository).deleteById("msg_user");
+    verify(chatRepository).forgetMessage(CHAT);
+    assertThat(cache.get(CHAT, 1)).isNull();
+    verify(messageRepository, never()).save(any());
+  }
+
+  @Test
+  void openBreakerDuringTheTurnAlsoAbortsIt() {
+    when(routerClient.route(anyString(), eq(USER), eq(CHAT), eq("hello"), any(), isNull(), isNull()))
+        .thenThrow(new RouterUnavailableException("router is unavailable, try again later"));
+
+    assertThatThrownBy(() -> service.sendMessage(USER, CHAT, request("hello")))
+        .isInstanceOf(RouterUnavailableException.class);
+
+    verify(messageRepository).deleteById("msg_user");
+    verify(chatRepository).forgetMessage(CHAT);
+    assertThat(cache.get(CHAT, 1)).isNull();
+  }
+
+  @Test
+  void streamClientGoingAwayKeepsTheAcceptedMessage() {
+    when(routerClient.routeStream(anyString(), eq(USER), eq(CHAT), eq("hello"), anyList(), isNull(), isNull(),
+        any(), any())).thenThrow(new UncheckedIOException(new IOException("broken pipe")));
+
+    assertThatThrownBy(() -> service.sendMessageStream(USER, CHAT, request("hello"), delta -> {}, Mono.never()))
+        .isInstanceOf(UncheckedIOException.class);
+
+    verify(messageRepository, never()).deleteById(anyString());
+    verify(chatRepository, never()).forgetMessage(anyString());
+    assertThat(cache.get(CHAT, 1).messages())
+        .extracting(ConversationCache.CachedMessage::content)
+        .containsExactly("earlier", "hello");
+  }
+
+  @Test
+  void blankContentIsRejectedBeforeAnythingIsStored() {
+    assertThatThrownBy(() -> service.sendMessage(USER, CHAT, request("  ")))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    verify(messageRepository, never()).saveAndFlush(any());
+  }
+
+  private static SendMessageRequest request(String content) {
+    return new SendMessageRequest().content(content);
+  }
+
+  private static MessageEntity withId(MessageEntity message, String id) {
+    message.setId(id);
+    return message;
+  }
+}
@@ -0,0 +1,250 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.ChatEntity;
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.repository.ChatRepository;
+import com.prpo.entry.repository.ContextMessageView;
+import com.prpo.entry.repository.ConversationSummaryRepository;
+import com.prpo.entry.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ChatTurnStoreTest {
+
+  private record View(
+      MessageEntity.Role getRole,
+      String getContent,
+      byte[] getContentCompressed,
+      Integer getTokenCount,
+      OffsetDateTime getCreatedAt
+  ) implements ContextMessageView {}
+
+  private static final String USER = "auth0|user";
+  private static final String CHAT = "conv_1";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ChatRepository chatRepository = mock(ChatRepository.class);
+  private final MessageRepository messageRepository = mock(MessageRepository.class);
+  private final ContextBuilder contextBuilder = mock(ContextBuilder.class);
+  private final UsageOutbox usageOutbox = mock(UsageOutbox.class);
+  private final UsageRollups usageRollups = mock(UsageRollups.class);
+  private final ConversationCache cache = new ConversationCache(properties(), meterRegistry);
+  private final ChatTurnStore store = new ChatTurnStore(chatRepository, messageRepository, contextBuilder, cache,
+      usageOutbox, usageRollups, new MessageCompression(meterRegistry, false, 4096, 200, 0.9));
+
+  private ChatEntity chat;
+
+  @BeforeEach
+  void setUp() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    chat = new ChatEntity();
+    chat.setId(CHAT);
+    chat.setUserId(USER);
+    chat.setTitle("New chat");
+    chat.setLastModelId("model-a");
+    chat.setMessageCount(0);
+    when(chatRepository.findByIdAndUserId(CHAT, USER)).thenReturn(Optional.of(chat));
+    when(chatRepository.recordMessage(eq(CHAT), anyString())).thenAnswer(inv -> {
+      chat.setMessageCount(chat.getMessageCount() + 1);
+      return 1;
+    });
+    when(messageRepository.saveAndFlush(any())).thenAnswer(inv -> withId(inv.getArgument(0), "msg_user"));
+    when(messageRepository.save(any())).thenAnswer(inv -> withId(inv.getArgument(0), "msg_assistant"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void beginTurnStoresTheUserMessageAndBuildsContextAfterIt() {
+    List<RouterClient.ContextMessage> context = List.of(new RouterClient.ContextMessage("user", "hello"));
+    when(contextBuilder.build(CHAT, 1, "model-a")).thenReturn(context);
+
+    ChatTurnStore.TurnStart turn = store.beginTurn(USER, CHAT, "  hello  ", null);
+
+    assertThat(turn.chatId()).isEqualTo(CHAT);
+    assertThat(turn.userMessage().getId()).isEqualTo("msg_user");
+    assertThat(turn.userMessage().getRole()).isEqualTo(MessageEntity.Role.user);
+    assertThat(turn.userMessage().getContent()).isEqualTo("  hello  ");
+    assertThat(turn.context()).isSameAs(context);
+    assertThat(turn.defaultTitle()).isTrue();
+    verify(chatRepository).recordMessage(CHAT, "hello");
+  }
+
+  @Test
+  void beginTurnBudgetsForTheForcedModel() {
+    store.beginTurn(USER, CHAT, "hello", "model-b");
+
+    verify(contextBuilder).build(CHAT, 1, "model-b");
+  }
+
+  @Test
+  void beginTurnOnAnotherUsersChatFails() {
+    assertThatThrownBy(() -> store.beginTurn("auth0|other", CHAT, "hello", null))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("chat not found");
+
+    verify(messageRepository, never()).saveAndFlush(any());
+    verify(chatRepository, never()).recordMessage(anyString(), anyString());
+  }
+
+  @Test
+  void beginTurnAppendsToACachedWindow() {
+    cache.put(CHAT, window("earlier"));
+
+    store.beginTurn(USER, CHAT, "hello", null);
+    commit();
+
+    assertThat(cache.get(CHAT, 1).messages())
+        .extracting(ConversationCache.CachedMessage::content)
+        .containsExactly("earlier", "hello");
+  }
+
+  @Test
+  void rollbackAfterAppendingDropsTheCachedWindow() {
+    cache.put(CHAT, window("earlier"));
+
+    store.beginTurn(USER, CHAT, "hello", null);
+    assertThat(cache.get(CHAT, 1).messages()).hasSize(2);
+    rollback();
+
+    assertThat(cache.get(CHAT, 1)).isNull();
+  }
+
+  @Test
+  void completeTurnStoresTheReplyAndRecordsUsage() {
+    cache.put(CHAT, window("hello"));
+    RouterClient.RouteResult routed = new RouterClient.RouteResult(
+        "hi there", "provider-x", "model-x", 120, 3, 5, 8, 0.002, "EUR", false);
+
+    MessageEntity reply = store.completeTurn(USER, CHAT, "req_1", routed);
+    commit();
+
+    assertThat(reply.getId()).isEqualTo("msg_assistant");
+    assertThat(reply.getRole()).isEqualTo(MessageEntity.Role.assistant);
+    assertThat(reply.getContent()).isEqualTo("hi there");
+    assertThat(reply.getRequestId()).isEqualTo("req_1");
+    assertThat(reply.getTokenCount()).isEqualTo(5);
+    verify(chatRepository).recordMessage(CHAT, "hi there");
+    assertThat(chat.getLastProviderId()).isEqualTo("provider-x");
+    assertThat(chat.getLastModelId()).isEqualTo("model-x");
+    verify(chatRepository).save(chat);
+
+    ArgumentCaptor<UsageClient.UsageEvent> event = ArgumentCaptor.forClass(UsageClient.UsageEvent.class);
+    verify(usageOutbox).enqueue(event.capture());
+    verify(usageRollups).record(event.getValue());
+    assertThat(event.getValue().requestId()).isEqualTo("req_1");
+    assertThat(event.getValue().userId()).isEqualTo(USER);
+    assertThat(event.getValue().totalTokens()).isEqualTo(8);
+
+    assertThat(cache.get(CHAT, 1).messages())
+        .extracting(ConversationCache.CachedMessage::content)
+        .containsExactly("hello", "hi there");
+  }
+
+  @Test
+  void abortTurnRemovesTheUserMessageAndRestoresTheChatRow() {
+    cache.put(CHAT, window("hello"));
+
+    store.abortTurn(CHAT, "msg_user");
+
+    verify(messageRepository).deleteById("msg_user");
+    verify(messageRepository).flush();
+    verify(chatRepository).forgetMessage(CHAT);
+    assertThat(cache.get(CHAT, 0)).isNull();
+  }
+
+  @Test
+  void aTurnStoredByAnotherInstanceIsNotMissedByTheCachedWindow() {
+    List<ContextMessageView> newestFirst = new ArrayList<>();
+    doAnswer(inv -> {
+      MessageEntity m = inv.getArgument(0);
+      newestFirst.add(0, new View(m.getRole(), m.getContent(), null, m.getTokenCount(), m.getCreatedAt()));
+      return m;
+    }).when(messageRepository).saveAndFlush(any());
+    when(messageRepository.findNewestForContext(eq(CHAT), any())).thenAnswer(inv -> List.copyOf(newestFirst));
+    ChatTurnStore instanceA = instance();
+    ChatTurnStore instanceB = instance();
+
+    instanceA.beginTurn(USER, CHAT, "one", null);
+    instanceB.beginTurn(USER, CHAT, "two", null);
+    ChatTurnStore.TurnStart turn = instanceA.beginTurn(USER, CHAT, "three", null);
+
+    assertThat(turn.context())
+        .extracting(RouterClient.ContextMessage::content)
+        .containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void previewIsStrippedAndTruncated() {
+    assertThat(ChatTurnStore.preview(null)).isEmpty();
+    assertThat(ChatTurnStore.preview("  short \n")).isEqualTo("short");
+    assertThat(ChatTurnStore.preview("x".repeat(200))).hasSize(140);
+  }
+
+  static ContextProperties properties() {
+    return new ContextProperties(8000, 200, Map.of(),
+        new ContextProperties.Summary(true, 20, 20, 100, 2),
+        new ContextProperties.Cache(true, 100, 1_000_000, Duration.ofMinutes(10)));
+  }
+
+  /** A store with its own cache, as another instance of the service would have. */
+  private ChatTurnStore instance() {
+    ConversationCache instanceCache = new ConversationCache(properties(), meterRegistry);
+    ContextBuilder builder = new ContextBuilder(messageRepository, mock(ConversationSummaryRepository.class),
+        instanceCache, properties(), meterRegistry);
+    return new ChatTurnStore(chatRepository, messageRepository, builder, instanceCache, usageOutbox, usageRollups,
+        new MessageCompression(meterRegistry, false, 4096, 200, 0.9));
+  }
+
+  private static ConversationCache.Entry window(String content) {
+    return new ConversationCache.Entry(0, null, 0, null,
+        List.of(new ConversationCache.CachedMessage("user", content, 1, OffsetDateTime.now())));
+  }
+
+  private static MessageEntity withId(MessageEntity message, String id) {
+    message.setId(id);
+    return message;
+  }
+
+  private static void commit() {
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+  }
+
+  private static void rollback() {
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+  }
+
+  private static void complete(int status) {
+    for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+      sync.afterCompletion(status);
+    }
+  }
+}
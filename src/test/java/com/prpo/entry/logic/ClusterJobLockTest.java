@@ -0,0 +1,70 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.prpo.entry.repository.PostgresTest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@PostgresTest
+@Import(ClusterJobLock.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClusterJobLockTest {
+
+  @Autowired
+  private ClusterJobLock jobLock;
+
+  private final ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  void tearDown() {
+    otherInstance.shutdownNow();
+  }
+
+  @Test
+  void aJobHeldByAnotherInstanceIsSkipped() throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    Future<Boolean> first = otherInstance.submit(() -> jobLock.runExclusively("test-job", () -> {
+      running.countDown();
+      await(finish);
+    }));
+    assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+
+    boolean second = jobLock.runExclusively("test-job", () -> {});
+    boolean other = jobLock.runExclusively("other-job", () -> {});
+    finish.countDown();
+
+    assertThat(second).isFalse();
+    assertThat(other).isTrue();
+    assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void theLockIsReleasedWhenTheJobFails() {
+    assertThatThrownBy(() -> jobLock.runExclusively("test-job", () -> {
+      throw new IllegalStateException("boom");
+    })).hasMessage("boom");
+
+    assertThat(jobLock.runExclusively("test-job", () -> {})).isTrue();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
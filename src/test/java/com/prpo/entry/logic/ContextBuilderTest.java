@@ -0,0 +1,217 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.ConversationSummaryEntity;
+import com.prpo.entry.domain.MessageContentCodec;
+import com.prpo.entry.domain.MessageEntity;
+import com.prpo.entry.helpers.RouterClient;
+import com.prpo.entry.repository.ContextMessageView;
+import com.prpo.entry.repository.ConversationSummaryRepository;
+import com.prpo.entry.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class ContextBuilderTest {
+
+  private static final String CHAT = "conv_1";
+  private static final OffsetDateTime T0 = OffsetDateTime.of(2025, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+  private static final int PER_MESSAGE = 30 + ContextBuilder.MESSAGE_OVERHEAD_TOKENS;
+  private static final int COUNT = 5;
+
+  private record View(
+      MessageEntity.Role getRole,
+      String getContent,
+      byte[] getContentCompressed,
+      Integer getTokenCount,
+      OffsetDateTime getCreatedAt
+  ) implements ContextMessageView {}
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final MessageRepository messageRepository = mock(MessageRepository.class);
+  private final ConversationSummaryRepository summaryRepository = mock(ConversationSummaryRepository.class);
+
+  @Test
+  void oldestMessagesAreDroppedFirstToFitTheBudget() {
+    ContextBuilder builder = builder(properties(2 * PER_MESSAGE + 1, 200, true));
+    history(5);
+
+    List<RouterClient.ContextMessage> context = builder.build(CHAT, COUNT, null);
+
+    assertThat(contents(context)).containsExactly("message 4", "message 5");
+  }
+
+  @Test
+  void theNewestMessageIsSentEvenWhenItAloneExceedsTheBudget() {
+    ContextBuilder builder = builder(properties(10, 200, true));
+    history(3);
+
+    assertThat(contents(builder.build(CHAT, COUNT, null))).containsExactly("message 3");
+  }
+
+  @Test
+  void theTargetModelsBudgetApplies() {
+    ContextProperties base = properties(PER_MESSAGE, 200, true);
+    ContextBuilder builder = builder(new ContextProperties(base.maxTokens(), base.maxMessages(),
+        Map.of("big-model", 3 * PER_MESSAGE), base.summary(), base.cache()));
+    history(5);
+
+    assertThat(builder.build(CHAT, COUNT, "big-model")).hasSize(3);
+    assertThat(builder.build(CHAT, COUNT, "other-model")).hasSize(1);
+  }
+
+  @Test
+  void historyIsReadWithAtMostMaxMessagesRows() {
+    ContextBuilder builder = builder(properties(8000, 3, true));
+    history(3);
+
+    builder.build(CHAT, COUNT, null);
+
+    verify(messageRepository).findNewestForContext(CHAT, PageRequest.of(0, 3));
+  }
+
+  @Test
+  void appendingToACachedWindowKeepsAtMostMaxMessages() {
+    ContextProperties properties = properties(8000, 3, true);
+    ConversationCache cache = new ConversationCache(properties, meterRegistry);
+    ContextBuilder builder = new ContextBuilder(messageRepository, summaryRepository, cache, properties, meterRegistry);
+    history(3);
+    builder.build(CHAT, COUNT, null);
+
+    cache.append(CHAT, COUNT, new ConversationCache.CachedMessage("user", "message 4", 30, T0.plusMinutes(4)));
+
+    assertThat(contents(builder.build(CHAT, COUNT + 1, null))).containsExactly("message 2", "message 3", "message 4");
+    verify(messageRepository).findNewestForContext(CHAT, PageRequest.of(0, 3));
+  }
+
+  @Test
+  void aSummaryLeadsAsASystemMessageAndOnlyLaterMessagesAreRead() {
+    ContextBuilder builder = builder(properties(8000, 200, true));
+    when(summaryRepository.findById(CHAT)).thenReturn(Optional.of(summary("They discussed pricing.", 50, T0)));
+    when(messageRepository.findNewestForContextAfter(CHAT, T0, "msg_0", PageRequest.of(0, 200)))
+        .thenReturn(newestFirst(2));
+
+    List<RouterClient.ContextMessage> context = builder.build(CHAT, COUNT, null);
+
+    assertThat(context).hasSize(3);
+    assertThat(context.get(0).role()).isEqualTo("system");
+    assertThat(context.get(0).content()).endsWith("They discussed pricing.");
+    assertThat(contents(context.subList(1, 3))).containsExactly("message 1", "message 2");
+    verify(messageRepository, never()).findNewestForContext(anyString(), any());
+  }
+
+  @Test
+  void theSummaryIsPaidForOutOfTheBudget() {
+    ContextBuilder builder = builder(properties(2 * PER_MESSAGE + 50 + ContextBuilder.MESSAGE_OVERHEAD_TOKENS, 200, true));
+    when(summaryRepository.findById(CHAT)).thenReturn(Optional.of(summary("Earlier.", 50, T0)));
+    when(messageRepository.findNewestForContextAfter(CHAT, T0, "msg_0", PageRequest.of(0, 200))).thenReturn(newestFirst(5));
+
+    List<RouterClient.ContextMessage> context = builder.build(CHAT, COUNT, null);
+
+    assertThat(context.get(0).role()).isEqualTo("system");
+    assertThat(contents(context.subList(1, context.size()))).containsExactly("message 4", "message 5");
+  }
+
+  @Test
+  void summariesAreIgnoredWhenDisabled() {
+    ContextBuilder builder = builder(properties(8000, 200, false));
+    history(2);
+
+    assertThat(builder.build(CHAT, COUNT, null)).extracting(RouterClient.ContextMessage::role).doesNotContain("system");
+    verifyNoInteractions(summaryRepository);
+  }
+
+  @Test
+  void compressedBodiesAreInflated() {
+    ContextBuilder builder = builder(properties(8000, 200, true));
+    byte[] compressed = MessageContentCodec.compress("the full body".getBytes(StandardCharsets.UTF_8));
+    when(messageRepository.findNewestForContext(CHAT, PageRequest.of(0, 200)))
+        .thenReturn(List.of(new View(MessageEntity.Role.user, "the fu", compressed, 3, T0)));
+
+    assertThat(contents(builder.build(CHAT, COUNT, null))).containsExactly("the full body");
+  }
+
+  @Test
+  void aCachedWindowIsReusedWithoutQuerying() {
+    ContextBuilder builder = builder(properties(8000, 200, true));
+    history(2);
+
+    builder.build(CHAT, COUNT, null);
+    builder.build(CHAT, COUNT, null);
+
+    verify(messageRepository).findNewestForContext(CHAT, PageRequest.of(0, 200));
+    verify(summaryRepository).findById(CHAT);
+  }
+
+  @Test
+  void aWindowCachedAtAnotherMessageCountIsReloaded() {
+    ContextBuilder builder = builder(properties(8000, 200, true));
+    history(2);
+    builder.build(CHAT, COUNT, null);
+
+    // Another instance stored two messages in the meantime.
+    history(4);
+
+    assertThat(contents(builder.build(CHAT, COUNT + 2, null))).containsExactly(
+        "message 1", "message 2", "message 3", "message 4");
+    verify(messageRepository, times(2)).findNewestForContext(CHAT, PageRequest.of(0, 200));
+    assertThat(meterRegistry.get("prpo.context.cache.requests").tag("result", "stale").counter().count())
+        .isEqualTo(1.0);
+  }
+
+  private ContextBuilder builder(ContextProperties properties) {
+    return new ContextBuilder(messageRepository, summaryRepository, new ConversationCache(properties, meterRegistry),
+        properties, meterRegistry);
+  }
+
+  private void history(int count) {
+    when(messageRepository.findNewestForContext(any(), any())).thenReturn(newestFirst(count));
+  }
+
+  /** Messages 1..count of 30 tokens each, newest first as the repository returns them. */
+  private static List<ContextMessageView> newestFirst(int count) {
+    List<ContextMessageView> views = new ArrayList<>();
+    for (int i = count; i >= 1; i--) {
+      MessageEntity.Role role = i % 2 == 1 ? MessageEntity.Role.user : MessageEntity.Role.assistant;
+      views.add(new View(role, "message " + i, null, 30, T0.plusMinutes(i)));
+    }
+    return views;
+  }
+
+  private static ConversationSummaryEntity summary(String text, int tokens, OffsetDateTime coveredUntil) {
+    ConversationSummaryEntity summary = new ConversationSummaryEntity();
+    summary.setChatId(CHAT);
+    summary.setSummary(text);
+    summary.setTokenCount(tokens);
+    summary.setCoveredUntil(coveredUntil);
+    summary.setCoveredUntilId("msg_0");
+    return summary;
+  }
+
+  private static List<String> contents(List<RouterClient.ContextMessage> context) {
+    return context.stream().map(RouterClient.ContextMessage::content).toList();
+  }
+
+  private static ContextProperties properties(int maxTokens, int maxMessages, boolean summaries) {
+    return new ContextProperties(maxTokens, maxMessages, Map.of(),
+        new ContextProperties.Summary(summaries, 20, 20, 100, 2),
+        new ContextProperties.Cache(true, 100, 1_000_000, Duration.ofMinutes(10)));
+  }
+}
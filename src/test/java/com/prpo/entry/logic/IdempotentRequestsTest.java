@@ -0,0 +1,194 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.prpo.entry.helpers.IdempotencyConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class IdempotentRequestsTest {
+
+  private static final Duration TTL = Duration.ofMinutes(10);
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+  private final AtomicReference<Runnable> onNextClockRead = new AtomicReference<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final IdempotentRequests requests = new IdempotentRequests(meterRegistry, TTL, 100, () -> {
+    Runnable hook = onNextClockRead.getAndSet(null);
+    if (hook != null) hook.run();
+    return now.get();
+  });
+
+  private final AtomicInteger runs = new AtomicInteger();
+  private final ExecutorService threads = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void stopThreads() {
+    threads.shutdownNow();
+  }
+
+  @Test
+  void duplicateWhileInFlightJoinsTheRunningCall() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> first = threads.submit(() -> requests.execute("u1", "k", "fp", () -> {
+      started.countDown();
+      await(release);
+      return "answer-" + runs.incrementAndGet();
+    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    Future<String> duplicate = threads.submit(() -> requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet()));
+    waitFor(() -> count("joined") == 1.0);
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("answer-1");
+    assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo("answer-1");
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  void duplicateWithinTtlReplaysTheStoredResult() {
+    requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet());
+    now.addAndGet(TTL.minusNanos(1).toNanos());
+
+    assertThat(requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet())).isEqualTo("answer-1");
+    assertThat(runs).hasValue(1);
+    assertThat(count("replayed")).isEqualTo(1.0);
+  }
+
+  @Test
+  void duplicateAfterTtlRunsAgain() {
+    requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet());
+    now.addAndGet(TTL.toNanos());
+
+    assertThat(requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet())).isEqualTo("answer-2");
+    assertThat(count("executed")).isEqualTo(2.0);
+  }
+
+  @Test
+  void keysAreScopedPerCaller() {
+    requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet());
+
+    assertThat(requests.execute("u2", "k", "fp", () -> "answer-" + runs.incrementAndGet())).isEqualTo("answer-2");
+  }
+
+  @Test
+  void reusingACompletedKeyForADifferentRequestIsRejected() {
+    requests.execute("u1", "k", "fp-a", () -> "answer-" + runs.incrementAndGet());
+
+    assertThatThrownBy(() -> requests.execute("u1", "k", "fp-b", () -> "answer-" + runs.incrementAndGet()))
+        .isInstanceOf(IdempotencyConflictException.class);
+    assertThat(runs).hasValue(1);
+    assertThat(count("conflict")).isEqualTo(1.0);
+  }
+
+  @Test
+  void reusingAnInFlightKeyForADifferentRequestIsRejected() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> first = threads.submit(() -> requests.execute("u1", "k", "fp-a", () -> {
+      started.countDown();
+      await(release);
+      return "answer";
+    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> requests.execute("u1", "k", "fp-b", () -> "other"))
+        .isInstanceOf(IdempotencyConflictException.class);
+
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+  }
+
+  @Test
+  void failuresAreNotStored() {
+    assertThatThrownBy(() -> requests.execute("u1", "k", "fp", () -> {
+      runs.incrementAndGet();
+      throw new IllegalStateException("router down");
+    })).isInstanceOf(IllegalStateException.class);
+
+    assertThat(requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet())).isEqualTo("answer-2");
+  }
+
+  @Test
+  void duplicateWhileInFlightSeesTheSameFailure() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException("router down");
+    Future<String> first = threads.submit(() -> requests.execute("u1", "k", "fp", () -> {
+      started.countDown();
+      await(release);
+      throw failure;
+    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<Throwable> duplicate = new CompletableFuture<>();
+    threads.submit(() -> {
+      try {
+        requests.execute("u1", "k", "fp", () -> "unexpected");
+        duplicate.complete(null);
+      } catch (RuntimeException e) {
+        duplicate.complete(e);
+      }
+    });
+    waitFor(() -> count("joined") == 1.0);
+    release.countDown();
+
+    assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(failure);
+    assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCause(failure);
+  }
+
+  @Test
+  void completionRacingTheInFlightClaimIsReplayed() {
+    requests.execute("u1", "k", "fp", () -> "stale");
+    now.addAndGet(TTL.toNanos());
+
+    // The duplicate's first lookup reads the clock to expire the stale entry. The original request
+    // runs to completion right then, so by the time the duplicate claims the key it is no longer
+    // in flight and its result has just been stored.
+    AtomicReference<String> original = new AtomicReference<>();
+    onNextClockRead.set(() -> original.set(requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet())));
+
+    String duplicate = requests.execute("u1", "k", "fp", () -> "answer-" + runs.incrementAndGet());
+
+    assertThat(original.get()).isEqualTo("answer-1");
+    assertThat(duplicate).isEqualTo("answer-1");
+    assertThat(runs).hasValue(1);
+    assertThat(count("replayed")).isEqualTo(1.0);
+  }
+
+  private double count(String result) {
+    return meterRegistry.get("prpo.idempotency.requests").tag("result", result).counter().count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) throw new AssertionError("condition not met in time");
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.domain.MessageContentCodec;
+import com.prpo.entry.domain.MessageEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Field;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MessageCompressionTest {
+
+  private static final String LONG_TEXT = "The quick brown fox jumps over the lazy dog. ".repeat(200);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void compressesBodiesAtOrAboveTheThreshold() throws Exception {
+    MessageEntity message = new MessageEntity();
+
+    compression(true, LONG_TEXT.length(), 0.9).setContent(message, LONG_TEXT);
+
+    assertThat(message.isContentCompressed()).isTrue();
+    assertThat(message.getContent()).isEqualTo(LONG_TEXT);
+    assertThat(field(message, "content")).isEqualTo(LONG_TEXT.substring(0, 20));
+    assertThat(MessageContentCodec.decompress((byte[]) field(message, "contentCompressed"))).isEqualTo(LONG_TEXT);
+  }
+
+  @Test
+  void keepsBodiesBelowTheThresholdPlain() throws Exception {
+    MessageEntity message = new MessageEntity();
+
+    compression(true, LONG_TEXT.length() + 1, 0.9).setContent(message, LONG_TEXT);
+
+    assertThat(message.isContentCompressed()).isFalse();
+    assertThat(field(message, "content")).isEqualTo(LONG_TEXT);
+  }
+
+  @Test
+  void keepsBodiesPlainWhenDisabled() throws Exception {
+    MessageEntity message = new MessageEntity();
+
+    compression(false, 1, 0.9).setContent(message, LONG_TEXT);
+
+    assertThat(message.isContentCompressed()).isFalse();
+    assertThat(field(message, "content")).isEqualTo(LONG_TEXT);
+  }
+
+  @Test
+  void keepsIncompressibleBodiesPlain() throws Exception {
+    Random random = new Random(42);
+    StringBuilder noise = new StringBuilder();
+    for (int i = 0; i < 8192; i++) noise.append((char) ('!' + random.nextInt(94)));
+    MessageEntity message = new MessageEntity();
+
+    compression(true, 1, 0.5).setContent(message, noise.toString());
+
+    assertThat(message.isContentCompressed()).isFalse();
+    assertThat(field(message, "content")).isEqualTo(noise.toString());
+    assertThat(meterRegistry.get("prpo.messages.compression.incompressible").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void previewDoesNotSplitASurrogatePair() throws Exception {
+    String text = "x".repeat(19) + "😀" + "y".repeat(4000);
+    MessageEntity message = new MessageEntity();
+
+    compression(true, 1, 0.9).setContent(message, text);
+
+    assertThat(message.isContentCompressed()).isTrue();
+    assertThat(field(message, "content")).isEqualTo("x".repeat(19));
+    assertThat(message.getContent()).isEqualTo(text);
+  }
+
+  @Test
+  void settingPlainContentClearsTheCompressedBody() {
+    MessageEntity message = new MessageEntity();
+    compression(true, 1, 0.9).setContent(message, LONG_TEXT);
+
+    message.setContent("edited");
+
+    assertThat(message.isContentCompressed()).isFalse();
+    assertThat(message.getContent()).isEqualTo("edited");
+  }
+
+  @Test
+  void reloadedEntityReturnsTheFullTextNotThePreview() throws Exception {
+    MessageEntity written = new MessageEntity();
+    compression(true, 1, 0.9).setContent(written, LONG_TEXT);
+
+    // Hibernate fills persistent fields directly and leaves the @Transient cache empty.
+    MessageEntity loaded = new MessageEntity();
+    setField(loaded, "content", field(written, "content"));
+    setField(loaded, "contentCompressed", field(written, "contentCompressed"));
+
+    assertThat(field(loaded, "decompressed")).isNull();
+    assertThat(loaded.getContent()).isEqualTo(LONG_TEXT);
+    assertThat(loaded.getContent()).isSameAs(loaded.getContent());
+  }
+
+  private MessageCompression compression(boolean enabled, int thresholdChars, double maxRatio) {
+    return new MessageCompression(meterRegistry, enabled, thresholdChars, 20, maxRatio);
+  }
+
+  private static Object field(MessageEntity message, String name) throws ReflectiveOperationException {
+    Field f = MessageEntity.class.getDeclaredField(name);
+    f.setAccessible(true);
+    return f.get(message);
+  }
+
+  private static void setField(MessageEntity message, String name, Object value) throws ReflectiveOperationException {
+    Field f = MessageEntity.class.getDeclaredField(name);
+    f.setAccessible(true);
+    f.set(message, value);
+  }
+}
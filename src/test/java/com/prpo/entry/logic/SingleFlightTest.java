@@ -0,0 +1,194 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+  private final AtomicInteger calls = new AtomicInteger();
+  private final ExecutorService threads = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void stopThreads() {
+    threads.shutdownNow();
+  }
+
+  @Test
+  void followersShareTheLeadersResult() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+      calls.incrementAndGet();
+      await(release);
+      return new Object();
+    }));
+    waitFor(() -> inFlight() == 1.0);
+
+    List<Future<Object>> followers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      followers.add(threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+        calls.incrementAndGet();
+        return new Object();
+      })));
+    }
+    waitFor(() -> count("getChat", "follower") == 3.0);
+    release.countDown();
+
+    Object result = leader.get(5, TimeUnit.SECONDS);
+    for (Future<Object> follower : followers) {
+      assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(result);
+    }
+    assertThat(calls).hasValue(1);
+    assertThat(count("getChat", "leader")).isEqualTo(1.0);
+  }
+
+  @Test
+  void followersGetTheLeadersException() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalArgumentException failure = new IllegalArgumentException("chat not found");
+    Future<Object> leader = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+      await(release);
+      throw failure;
+    }));
+    waitFor(() -> inFlight() == 1.0);
+
+    Future<Object> follower = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> "own"));
+    waitFor(() -> count("getChat", "follower") == 1.0);
+    release.countDown();
+
+    assertThat(causeOf(leader)).isSameAs(failure);
+    assertThat(causeOf(follower)).isSameAs(failure);
+  }
+
+  @Test
+  void differentKeysDoNotCoalesce() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> blocked = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+      await(release);
+      return "c1";
+    }));
+    waitFor(() -> inFlight() == 1.0);
+
+    assertThat(singleFlight.execute("getChat", List.of("u1", "c2"), () -> "c2")).isEqualTo("c2");
+    assertThat(singleFlight.execute("listChats", List.of("u1", "c1"), () -> "list")).isEqualTo("list");
+
+    release.countDown();
+    assertThat(blocked.get(5, TimeUnit.SECONDS)).isEqualTo("c1");
+  }
+
+  @Test
+  void nullArgsAreAllowed() {
+    assertThat(singleFlight.execute("listChats", Arrays.asList("u1", null, null), () -> "page")).isEqualTo("page");
+  }
+
+  @Test
+  void nothingIsKeptAfterTheCallFinishes() {
+    singleFlight.execute("getChat", List.of("u1", "c1"), () -> calls.incrementAndGet());
+    try {
+      singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+        calls.incrementAndGet();
+        throw new IllegalStateException("boom");
+      });
+    } catch (IllegalStateException expected) {
+      // fall through
+    }
+
+    assertThat(inFlight()).isEqualTo(0.0);
+    assertThat(singleFlight.execute("getChat", List.of("u1", "c1"), () -> calls.incrementAndGet())).isEqualTo(3);
+  }
+
+  @Test
+  void forgetDetachesMatchingCallsFromLaterCallers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+      await(release);
+      return "before-write";
+    }));
+    waitFor(() -> inFlight() == 1.0);
+    Future<Object> earlyFollower = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> "own"));
+    waitFor(() -> count("getChat", "follower") == 1.0);
+
+    singleFlight.forget("u1");
+
+    assertThat(inFlight()).isEqualTo(0.0);
+    assertThat(singleFlight.execute("getChat", List.of("u1", "c1"), () -> "after-write")).isEqualTo("after-write");
+
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("before-write");
+    assertThat(earlyFollower.get(5, TimeUnit.SECONDS)).isEqualTo("before-write");
+  }
+
+  @Test
+  void forgetOnlyMatchesTheArgsPrefix() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> leader = threads.submit(() -> singleFlight.execute("getChat", List.of("u1", "c1"), () -> {
+      await(release);
+      return "c1";
+    }));
+    waitFor(() -> inFlight() == 1.0);
+
+    singleFlight.forget("u2");
+    singleFlight.forget("u1", "c2");
+    singleFlight.forget("u1", "c1", "extra");
+
+    assertThat(inFlight()).isEqualTo(1.0);
+    singleFlight.forget("u1", "c1");
+    assertThat(inFlight()).isEqualTo(0.0);
+
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("c1");
+  }
+
+  private double inFlight() {
+    return meterRegistry.get("prpo.singleflight.in_flight").gauge().value();
+  }
+
+  private double count(String operation, String role) {
+    var counter = meterRegistry.find("prpo.singleflight.calls").tag("operation", operation).tag("role", role).counter();
+    return counter != null ? counter.count() : 0.0;
+  }
+
+  private static Throwable causeOf(Future<?> future) throws InterruptedException {
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      throw new AssertionError("expected the call to fail");
+    } catch (ExecutionException e) {
+      return e.getCause();
+    } catch (TimeoutException e) {
+      throw new AssertionError("call did not finish", e);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) throw new AssertionError("condition not met in time");
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.helpers.UsageClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+class UsageOutboxDispatcherTest {
+
+  private static final Duration BASE = Duration.ofSeconds(2);
+  private static final Duration MAX = Duration.ofMinutes(10);
+  private static final int MAX_ATTEMPTS = 20;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final UsageOutbox outbox = mock(UsageOutbox.class);
+  private final UsageClient usageClient = mock(UsageClient.class);
+  private final UsageOutboxDispatcher dispatcher = new UsageOutboxDispatcher(
+      outbox, usageClient, meterRegistry, 10, 4, MAX_ATTEMPTS, Duration.ofMinutes(1), BASE, MAX);
+
+  @Test
+  void deliveredEventsAreRemovedFromTheOutbox() {
+    claim(row("evt_1", 0), row("evt_2", 3));
+    when(usageClient.recordEventAsync(any()))
+        .thenAnswer(inv -> Mono.just(new UsageClient.RecordEventResult(true, eventId(inv.getArgument(0)), false)));
+
+    dispatcher.dispatch();
+
+    verify(outbox).markDelivered(argThatContainsExactly("evt_1", "evt_2"));
+    verify(outbox, never()).markFailed(anyString(), anyString(), any(), anyInt());
+    assertThat(count("delivered")).isEqualTo(2.0);
+  }
+
+  @Test
+  void rejectedEventsAreRetriedLater() {
+    claim(row("evt_1", 0));
+    when(usageClient.recordEventAsync(any()))
+        .thenReturn(Mono.just(new UsageClient.RecordEventResult(false, "evt_1", null)));
+
+    dispatcher.dispatch();
+
+    verify(outbox).markFailed(eq("evt_1"), eq("usage event not accepted"), any(), eq(MAX_ATTEMPTS));
+    verify(outbox).markDelivered(List.of());
+    assertThat(count("failed")).isEqualTo(1.0);
+  }
+
+  @Test
+  void backoffDoublesPerAttemptWithUpToTwentyPercentJitter() {
+    assertThat(backoffAfterFailure(0)).isBetween(ms(2_000), ms(2_400));
+    assertThat(backoffAfterFailure(1)).isBetween(ms(4_000), ms(4_800));
+    assertThat(backoffAfterFailure(4)).isBetween(ms(32_000), ms(38_400));
+  }
+
+  @Test
+  void backoffIsCappedAtTheMaximum() {
+    assertThat(backoffAfterFailure(9)).isBetween(MAX, ms(MAX.toMillis() * 6 / 5));
+    assertThat(backoffAfterFailure(60)).isBetween(MAX, ms(MAX.toMillis() * 6 / 5));
+  }
+
+  @Test
+  void jitterSpreadsRetriesOfTheSameAttempt() {
+    Set<Duration> seen = new HashSet<>();
+    for (int i = 0; i < 50; i++) seen.add(backoffAfterFailure(2));
+
+    assertThat(seen).hasSizeGreaterThan(1);
+    assertThat(seen).allSatisfy(d -> assertThat(d).isBetween(ms(8_000), ms(9_600)));
+  }
+
+  @Test
+  void eventsThatRunOutOfAttemptsAreCountedDead() {
+    claim(row("evt_1", MAX_ATTEMPTS - 1));
+    when(usageClient.recordEventAsync(any())).thenReturn(Mono.error(new IllegalStateException("503")));
+    when(outbox.markFailed(eq("evt_1"), anyString(), any(), eq(MAX_ATTEMPTS))).thenReturn(true);
+
+    dispatcher.dispatch();
+
+    assertThat(count("failed")).isEqualTo(1.0);
+    assertThat(count("dead")).isEqualTo(1.0);
+  }
+
+  @Test
+  void aFullBatchIsFollowedByAnotherClaim() {
+    UsageOutboxEntity[] full = new UsageOutboxEntity[10];
+    for (int i = 0; i < full.length; i++) full[i] = row("evt_" + i, 0);
+    when(outbox.claimBatch(eq(10), any())).thenReturn(List.of(full), List.of());
+    when(usageClient.recordEventAsync(any()))
+        .thenAnswer(inv -> Mono.just(new UsageClient.RecordEventResult(true, eventId(inv.getArgument(0)), false)));
+
+    dispatcher.dispatch();
+
+    verify(outbox, times(2)).claimBatch(eq(10), any());
+    assertThat(count("delivered")).isEqualTo(10.0);
+  }
+
+  private Duration backoffAfterFailure(int previousAttempts) {
+    UsageOutbox outbox = mock(UsageOutbox.class);
+    UsageOutboxDispatcher dispatcher = new UsageOutboxDispatcher(
+        outbox, usageClient, new SimpleMeterRegistry(), 10, 4, MAX_ATTEMPTS, Duration.ofMinutes(1), BASE, MAX);
+    when(outbox.claimBatch(anyInt(), any())).thenReturn(List.of(row("evt_1", previousAttempts)), List.of());
+    when(usageClient.recordEventAsync(any())).thenReturn(Mono.error(new IllegalStateException("503")));
+
+    dispatcher.dispatch();
+
+    ArgumentCaptor<Duration> backoff = ArgumentCaptor.forClass(Duration.class);
+    verify(outbox).markFailed(eq("evt_1"), eq("503"), backoff.capture(), eq(MAX_ATTEMPTS));
+    return backoff.getValue();
+  }
+
+  private void claim(UsageOutboxEntity... rows) {
+    when(outbox.claimBatch(eq(10), any())).thenReturn(List.of(rows), List.of());
+  }
+
+  private double count(String outcome) {
+    return meterRegistry.get("prpo.usage.outbox.events").tag("outcome", outcome).counter().count();
+  }
+
+  private static List<String> argThatContainsExactly(String... ids) {
+    return argThat(list -> list.size() == ids.length && new HashSet<>(list).equals(Set.of(ids)));
+  }
+
+  private static String eventId(UsageClient.UsageEvent event) {
+    return event.eventId();
+  }
+
+  private static Duration ms(long millis) {
+    return Duration.ofMillis(millis);
+  }
+
+  static UsageOutboxEntity row(String eventId, int attempts) {
+    UsageOutboxEntity row = new UsageOutboxEntity();
+    row.setEventId(eventId);
+    row.setRequestId("req_" + eventId);
+    row.setUserId("auth0|user");
+    row.setConversationId("conv_1");
+    row.setTotalTokens(8);
+    row.setCost(0.001);
+    row.setOccurredAt(OffsetDateTime.now());
+    row.setStatus(UsageOutboxEntity.Status.pending);
+    row.setAttempts(attempts);
+    row.setNextAttemptAt(OffsetDateTime.now());
+    return row;
+  }
+}
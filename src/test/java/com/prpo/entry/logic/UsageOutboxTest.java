@@ -0,0 +1,61 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.repository.UsageOutboxRepository;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class UsageOutboxTest {
+
+  private final UsageOutboxRepository repository = mock(UsageOutboxRepository.class);
+  private final UsageOutbox outbox = new UsageOutbox(repository);
+
+  @Test
+  void failureBelowTheLimitSchedulesTheNextAttempt() {
+    UsageOutboxEntity row = UsageOutboxDispatcherTest.row("evt_1", 3);
+    when(repository.findById("evt_1")).thenReturn(Optional.of(row));
+
+    boolean dead = outbox.markFailed("evt_1", "503", Duration.ofSeconds(16), 5);
+
+    assertThat(dead).isFalse();
+    assertThat(row.getAttempts()).isEqualTo(4);
+    assertThat(row.getStatus()).isEqualTo(UsageOutboxEntity.Status.pending);
+    assertThat(row.getLastError()).isEqualTo("503");
+    assertThat(row.getNextAttemptAt()).isCloseTo(OffsetDateTime.now().plusSeconds(16), within(2, ChronoUnit.SECONDS));
+    verify(repository).save(row);
+  }
+
+  @Test
+  void failureThatReachesTheLimitDeadLettersTheRow() {
+    UsageOutboxEntity row = UsageOutboxDispatcherTest.row("evt_1", 4);
+    OffsetDateTime scheduled = row.getNextAttemptAt();
+    when(repository.findById("evt_1")).thenReturn(Optional.of(row));
+
+    boolean dead = outbox.markFailed("evt_1", "503", Duration.ofSeconds(32), 5);
+
+    assertThat(dead).isTrue();
+    assertThat(row.getAttempts()).isEqualTo(5);
+    assertThat(row.getStatus()).isEqualTo(UsageOutboxEntity.Status.dead);
+    assertThat(row.getNextAttemptAt()).isEqualTo(scheduled);
+    verify(repository).save(row);
+  }
+
+  @Test
+  void rowDeliveredElsewhereInTheMeantimeIsIgnored() {
+    when(repository.findById("evt_1")).thenReturn(Optional.empty());
+
+    assertThat(outbox.markFailed("evt_1", "503", Duration.ofSeconds(2), 5)).isFalse();
+    verify(repository, never()).save(any());
+  }
+}
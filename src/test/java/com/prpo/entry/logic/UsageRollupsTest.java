@@ -0,0 +1,157 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.domain.UsageDailyRollupEntity;
+import com.prpo.entry.helpers.UsageClient;
+import com.prpo.entry.repository.PostgresTest;
+import com.prpo.entry.repository.UsageDailyRollupRepository;
+import com.prpo.entry.repository.UsageOutboxRepository;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Writers run in their own transactions here, as a turn and a reconcile do. */
+@PostgresTest
+@Import({UsageRollups.class, UsageOutbox.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsageRollupsTest {
+
+  private static final String USER = "auth0|rollups";
+  private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+
+  @MockitoBean
+  private UsageSummaryCache summaryCache;
+
+  @Autowired
+  private UsageDailyRollupRepository repository;
+
+  @Autowired
+  private UsageOutboxRepository outboxRepository;
+
+  @Autowired
+  private UsageRollups rollups;
+
+  @Autowired
+  private UsageOutbox outbox;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate tx;
+  private final ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+
+  @BeforeEach
+  void setUp() {
+    tx = new TransactionTemplate(transactionManager);
+    repository.deleteAllInBatch();
+    outboxRepository.deleteAllInBatch();
+  }
+
+  @AfterEach
+  void tearDown() {
+    otherInstance.shutdownNow();
+    repository.deleteAllInBatch();
+    outboxRepository.deleteAllInBatch();
+  }
+
+  @Test
+  void recordUpsertsOneRowPerDayProviderAndModel() {
+    rollups.record(event("evt_1", DAY, 10, 100));
+    rollups.record(event("evt_2", DAY, 5, 0));
+    rollups.record(event("evt_3", DAY.plusDays(1), 7, 50));
+
+    UsageDailyRollupEntity first = row(DAY);
+    assertThat(first.getRequests()).isEqualTo(2);
+    assertThat(first.getTokens()).isEqualTo(15);
+    assertThat(first.getLatencySumMs()).isEqualTo(100);
+    assertThat(first.getLatencyCount()).isEqualTo(1);
+    assertThat(row(DAY.plusDays(1)).getRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void replaceMergesRemoteCountsWithEventsTheUsageServiceHasNotSeen() {
+    rollups.record(event("evt_stale", DAY, 999, 0));
+    rollups.record(event("evt_outside", DAY.plusDays(5), 3, 0));
+    outbox.enqueue(event("evt_delivered", DAY, 4, 0));
+    outbox.enqueue(event("evt_pending", DAY, 6, 0));
+
+    UsageRollups.Counts remote = new UsageRollups.Counts();
+    remote.add(4, 0.004, null);
+    remote.add(20, 0.02, null);
+    rollups.replace(USER, DAY, DAY.plusDays(1), Map.of(key(DAY), remote), Set.of("evt_delivered", "evt_remote"));
+
+    UsageDailyRollupEntity rebuilt = row(DAY);
+    assertThat(rebuilt.getRequests()).isEqualTo(3);
+    assertThat(rebuilt.getTokens()).isEqualTo(30);
+    assertThat(row(DAY.plusDays(5)).getTokens()).isEqualTo(3);
+  }
+
+  @Test
+  void replaceWaitsForAConcurrentRecordAndKeepsItsEvent() throws Exception {
+    CountDownLatch recorded = new CountDownLatch(1);
+    CountDownLatch commit = new CountDownLatch(1);
+    Future<?> turn = otherInstance.submit(() -> tx.executeWithoutResult(s -> {
+      UsageClient.UsageEvent e = event("evt_turn", DAY, 8, 0);
+      outbox.enqueue(e);
+      rollups.record(e);
+      recorded.countDown();
+      await(commit);
+    }));
+    assertThat(recorded.await(10, TimeUnit.SECONDS)).isTrue();
+
+    ExecutorService reconciler = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> replace = reconciler.submit(() -> rollups.replace(USER, DAY, DAY, Map.of(), Set.of()));
+      Thread.sleep(300);
+      assertThat(replace).isNotDone();
+
+      commit.countDown();
+      turn.get(10, TimeUnit.SECONDS);
+      replace.get(10, TimeUnit.SECONDS);
+    } finally {
+      reconciler.shutdownNow();
+    }
+
+    assertThat(row(DAY).getRequests()).isEqualTo(1);
+    assertThat(row(DAY).getTokens()).isEqualTo(8);
+  }
+
+  private UsageDailyRollupEntity row(LocalDate day) {
+    return repository.findById(key(day)).orElseThrow();
+  }
+
+  private static UsageDailyRollupEntity.Key key(LocalDate day) {
+    return new UsageDailyRollupEntity.Key(USER, day, "provider-x", "model-x");
+  }
+
+  private static UsageClient.UsageEvent event(String eventId, LocalDate day, int tokens, int latencyMs) {
+    return new UsageClient.UsageEvent(eventId, "req_" + eventId, USER, "conv_1", "provider-x", "model-x",
+        null, null, tokens, 0.001, "EUR", latencyMs, day.atTime(12, 0).atOffset(ZoneOffset.UTC));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
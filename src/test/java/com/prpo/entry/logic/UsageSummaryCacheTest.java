@@ -0,0 +1,82 @@
+package com.prpo.entry.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.model.UsageSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+class UsageSummaryCacheTest {
+
+  private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+  private static final LocalDate TO = LocalDate.of(2025, 3, 31);
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void freshEntriesAreServedWithoutLoading() {
+    UsageSummaryCache cache = cache(100);
+
+    cache.get("alice", FROM, TO, loader());
+    UsageSummary second = cache.get("alice", FROM, TO, loader());
+
+    assertThat(loads).hasValue(1);
+    assertThat(second.getStale()).isNotEqualTo(Boolean.TRUE);
+  }
+
+  @Test
+  void invalidatingAUserReloadsEveryRangeOfThatUserOnly() {
+    UsageSummaryCache cache = cache(100);
+    cache.get("alice", FROM, TO, loader());
+    cache.get("alice", null, null, loader());
+    cache.get("bob", FROM, TO, loader());
+
+    cache.invalidateUser("alice");
+    cache.get("alice", FROM, TO, loader());
+    cache.get("alice", null, null, loader());
+    cache.get("bob", FROM, TO, loader());
+
+    assertThat(loads).hasValue(5);
+  }
+
+  @Test
+  void entriesLoadedAfterTheInvalidationAreServed() {
+    UsageSummaryCache cache = cache(100);
+    cache.invalidateUser("alice");
+
+    cache.get("alice", FROM, TO, loader());
+    cache.get("alice", FROM, TO, loader());
+
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void anInvalidationPushedOutByOtherUsersStillApplies() {
+    UsageSummaryCache cache = cache(2);
+    cache.get("alice", FROM, TO, loader());
+
+    cache.invalidateUser("alice");
+    cache.invalidateUser("bob");
+    cache.invalidateUser("carol");
+    cache.get("alice", FROM, TO, loader());
+
+    assertThat(loads).hasValue(2);
+  }
+
+  private UsageSummaryCache cache(int maxEntries) {
+    return new UsageSummaryCache(new SyncTaskExecutor(), new SimpleMeterRegistry(),
+        Duration.ofMinutes(1), Duration.ofHours(1), maxEntries);
+  }
+
+  private Supplier<UsageSummary> loader() {
+    return () -> {
+      loads.incrementAndGet();
+      return new UsageSummary().totalRequests(loads.get());
+    };
+  }
+}
@@ -0,0 +1,91 @@
+package com.prpo.entry.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.domain.MessageContentCodec;
+import com.prpo.entry.domain.MessageEntity;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@PostgresTest
+class MessageRepositoryTest {
+
+  private static final String CHAT = "conv_keyset";
+  private static final OffsetDateTime T0 = OffsetDateTime.of(2025, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+  private static final OffsetDateTime BEGINNING = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  @Autowired
+  private MessageRepository repository;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @BeforeEach
+  void setUp() {
+    jdbc.update("insert into entry.users (id, email, display_name) values ('auth0|keyset', 'k@example.com', 'K')");
+    jdbc.update("insert into entry.chats (id, user_id) values (?, 'auth0|keyset')", CHAT);
+    insert("msg_a", T0);
+    insert("msg_b", T0.plusSeconds(1));
+    insert("msg_c", T0.plusSeconds(1));
+    insert("msg_d", T0.plusSeconds(2));
+  }
+
+  @Test
+  void messagesSharingTheCoveredTimestampAreNeitherSkippedNorRepeated() {
+    OffsetDateTime coveredUntil = T0.plusSeconds(1);
+
+    assertThat(repository.countAfter(CHAT, coveredUntil, "msg_b")).isEqualTo(2);
+    assertThat(repository.pageAfter(CHAT, coveredUntil, "msg_b", PageRequest.of(0, 10)))
+        .extracting(MessageView::getId)
+        .containsExactly("msg_c", "msg_d");
+    assertThat(repository.findNewestForContextAfter(CHAT, coveredUntil, "msg_b", PageRequest.of(0, 10)))
+        .extracting(ContextMessageView::getContent)
+        .containsExactly("body msg_d", "body msg_c");
+  }
+
+  @Test
+  void theBeginningPositionCoversNothing() {
+    assertThat(repository.countAfter(CHAT, BEGINNING, "")).isEqualTo(4);
+    assertThat(repository.pageAfter(CHAT, BEGINNING, "", PageRequest.of(0, 3)))
+        .extracting(MessageView::getId)
+        .containsExactly("msg_a", "msg_b", "msg_c");
+  }
+
+  @Test
+  void listedRowsCarryOnlyThePreviewUntilTheirBodiesAreInflated() {
+    byte[] compressed = MessageContentCodec.compress("the full body".getBytes(StandardCharsets.UTF_8));
+    jdbc.update(
+        "insert into entry.messages (id, chat_id, role, content, content_compressed, created_at) "
+            + "values ('msg_e', ?, 'assistant', 'the fu', ?, ?)",
+        CHAT, compressed, T0.plusSeconds(3));
+
+    List<MessageView> page = repository.pageLatest(CHAT, PageRequest.of(0, 2));
+
+    assertThat(page).extracting(MessageView::getId).containsExactly("msg_e", "msg_d");
+    assertThat(page).extracting(MessageView::isCompressed).containsExactly(true, false);
+    assertThat(page.get(0).getContent()).isEqualTo("the fu");
+    assertThat(page.get(0).getRole()).isEqualTo(MessageEntity.Role.assistant);
+    assertThat(repository.inflateCompressed(page)).isEqualTo(Map.of("msg_e", "the full body"));
+    assertThat(repository.findHistory(CHAT)).extracting(MessageView::getId)
+        .containsExactly("msg_a", "msg_b", "msg_c", "msg_d", "msg_e");
+  }
+
+  @Test
+  void pagesWithoutCompressedRowsNeedNoSecondRead() {
+    assertThat(repository.inflateCompressed(repository.findHistory(CHAT))).isEmpty();
+  }
+
+  private void insert(String id, OffsetDateTime createdAt) {
+    jdbc.update(
+        "insert into entry.messages (id, chat_id, role, content, created_at) values (?, ?, 'user', ?, ?)",
+        id, CHAT, "body " + id, createdAt);
+  }
+}
@@ -0,0 +1,28 @@
+package com.prpo.entry.repository;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Repository test against a real Postgres migrated by Flyway; the queries under test rely on
+ * Postgres features such as {@code SKIP LOCKED} and {@code ON CONFLICT}. Runs only when
+ * {@code PRPO_TEST_DATABASE_URL} points at a throwaway database, e.g.
+ * {@code PRPO_TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/prpo_test ./mvnw test}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "PRPO_TEST_DATABASE_URL", matches = ".+")
+@TestPropertySource(properties = {
+    "spring.datasource.url=${PRPO_TEST_DATABASE_URL}",
+    "spring.datasource.username=${PRPO_TEST_DATABASE_USER:postgres}",
+    "spring.datasource.password=${PRPO_TEST_DATABASE_PASSWORD:postgres}"
+})
+public @interface PostgresTest {}
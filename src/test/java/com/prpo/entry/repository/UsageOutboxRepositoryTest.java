@@ -0,0 +1,131 @@
+package com.prpo.entry.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.prpo.entry.domain.UsageOutboxEntity;
+import com.prpo.entry.logic.UsageOutbox;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Claims run in their own transactions here, as they do across dispatcher instances. */
+@PostgresTest
+@Import(UsageOutbox.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsageOutboxRepositoryTest {
+
+  @Autowired
+  private UsageOutboxRepository repository;
+
+  @Autowired
+  private UsageOutbox outbox;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate tx;
+  private final ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+
+  @BeforeEach
+  void setUp() {
+    tx = new TransactionTemplate(transactionManager);
+    repository.deleteAllInBatch();
+  }
+
+  @AfterEach
+  void tearDown() {
+    otherInstance.shutdownNow();
+    repository.deleteAllInBatch();
+  }
+
+  @Test
+  void onlyDuePendingRowsAreClaimedOldestFirst() {
+    OffsetDateTime now = OffsetDateTime.now();
+    save("evt_later", UsageOutboxEntity.Status.pending, now.minusMinutes(1));
+    save("evt_first", UsageOutboxEntity.Status.pending, now.minusMinutes(5));
+    save("evt_future", UsageOutboxEntity.Status.pending, now.plusMinutes(5));
+    save("evt_dead", UsageOutboxEntity.Status.dead, now.minusMinutes(10));
+
+    List<String> claimed = tx.execute(s -> ids(repository.lockDueBatch(10)));
+
+    assertThat(claimed).containsExactly("evt_first", "evt_later");
+  }
+
+  @Test
+  void concurrentClaimersSkipRowsLockedByAnother() throws Exception {
+    OffsetDateTime due = OffsetDateTime.now().minusMinutes(1);
+    save("evt_1", UsageOutboxEntity.Status.pending, due.minusSeconds(3));
+    save("evt_2", UsageOutboxEntity.Status.pending, due.minusSeconds(2));
+    save("evt_3", UsageOutboxEntity.Status.pending, due.minusSeconds(1));
+
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<List<String>> first = otherInstance.submit(() -> tx.execute(s -> {
+      List<String> ids = ids(repository.lockDueBatch(2));
+      locked.countDown();
+      await(release);
+      return ids;
+    }));
+    assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+    List<String> second = tx.execute(s -> ids(repository.lockDueBatch(10)));
+    release.countDown();
+
+    assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly("evt_1", "evt_2");
+    assertThat(second).containsExactly("evt_3");
+  }
+
+  @Test
+  void leasedRowsAreClaimedAgainOnlyOnceTheLeaseExpires() {
+    OffsetDateTime due = OffsetDateTime.now().minusMinutes(1);
+    save("evt_1", UsageOutboxEntity.Status.pending, due);
+    save("evt_2", UsageOutboxEntity.Status.pending, due);
+
+    assertThat(ids(outbox.claimBatch(10, Duration.ofMinutes(1)))).containsExactlyInAnyOrder("evt_1", "evt_2");
+    assertThat(outbox.claimBatch(10, Duration.ofMinutes(1))).isEmpty();
+
+    // The instance holding evt_1 died without marking it delivered or failed.
+    tx.executeWithoutResult(s -> repository.lease(List.of("evt_1"), OffsetDateTime.now().minusSeconds(1)));
+
+    assertThat(ids(outbox.claimBatch(10, Duration.ofMinutes(1)))).containsExactly("evt_1");
+  }
+
+  private void save(String eventId, UsageOutboxEntity.Status status, OffsetDateTime nextAttemptAt) {
+    UsageOutboxEntity row = new UsageOutboxEntity();
+    row.setEventId(eventId);
+    row.setRequestId("req_" + eventId);
+    row.setUserId("auth0|user");
+    row.setConversationId("conv_1");
+    row.setOccurredAt(OffsetDateTime.now());
+    row.setStatus(status);
+    row.setNextAttemptAt(nextAttemptAt);
+    repository.save(row);
+  }
+
+  private static List<String> ids(List<UsageOutboxEntity> rows) {
+    return rows.stream().map(UsageOutboxEntity::getEventId).toList();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("timed out");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -34,6 +34,21 @@ import { useParams, useNavigate, useLocation } from "react-router-dom";
 
 
 const GOOGLE_CONNECTION = 'google-oauth2'
+const SEND_ATTEMPTS = 3
+
+// Network errors and 5xx may have reached the server, so retries reuse the caller's
+// Idempotency-Key and get the original answer instead of a second one.
+async function withRetry(call) {
+  for (let attempt = 1; ; attempt++) {
+    try {
+      return await call()
+    } catch (e) {
+      const retryable = e?.status == null || e.status >= 500
+      if (!retryable || attempt >= SEND_ATTEMPTS) throw e
+      await new Promise(resolve => setTimeout(resolve, 500 * attempt))
+    }
+  }
+}
 
 export default function App() {
   const { isAuthenticated, isLoading, loginWithRedirect, logout, getAccessTokenSilently } = useAuth0()
@@ -185,7 +200,10 @@ export default function App() {
         else forceProviderId = 'anthropic'
       }
 
-      const resp = await sendMessageApi(t, chatId, text, forceProviderId, forceModelId)
+      const idempotencyKey = crypto.randomUUID()
+      const resp = await withRetry(() =>
+        sendMessageApi(t, chatId, text, idempotencyKey, forceProviderId, forceModelId)
+      )
 
       setMessages(m => {
         const withoutOptimistic = m.filter(x => x.id !== optimistic.id)
@@ -48,6 +48,16 @@ export type ListChatsResponse = {
   nextCursor?: string | null;
 };
 
+/** A non-2xx response; `status` lets callers tell retryable failures from rejections. */
+export class ApiError extends Error {
+  readonly status: number;
+
+  constructor(message: string, status: number) {
+    super(message);
+    this.status = status;
+  }
+}
+
 function authHeaders(token: string) {
   return { Authorization: `Bearer ${token}` };
 }
@@ -81,6 +91,7 @@ export async function sendMessage(
   token: string,
   conversationId: string,
   content: string,
+  idempotencyKey: string,
   forceProviderId?: string | null,
   forceModelId?: string | null
 ): Promise<SendMessageResponse> {
@@ -97,12 +108,13 @@ export async function sendMessage(
     method: "POST",
     headers: {
       "Content-Type": "application/json",
+      "Idempotency-Key": idempotencyKey,
       ...authHeaders(token),
     },
     body: JSON.stringify(body),
   });
 
-  if (!r.ok) throw new Error(`sendMessage failed: ${r.status}`);
+  if (!r.ok) throw new ApiError(`sendMessage failed: ${r.status}`, r.status);
   return r.json();
 }
 
@@ -131,3 +143,16 @@ export async function deleteChat(token: string, conversationId: string) {
 
   if (!r.ok) throw new Error(`deleteChat failed: ${r.status}`);
 }
+
+export async function deleteAllChats(token: string): Promise<number> {
+  const r = await fetch(`/api/v1/chat`, {
+    method: "DELETE",
+    headers: {
+      ...authHeaders(token),
+    },
+  });
+
+  if (!r.ok) throw new Error(`deleteAllChats failed: ${r.status}`);
+  const body = (await r.json()) as { deleted: number };
+  return body.deleted;
+}